@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the install throughput of several threads installing independent services into the same container.
+ * The services are {@link ServiceController.Mode#ON_DEMAND on demand} and never demanded, so only the
+ * installation itself is measured.
+ * <p>
+ * Run it with {@code -t 1}, {@code -t 2}, {@code -t 4} and so on to see how installation scales with the
+ * number of installing threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ConcurrentInstallBenchmark {
+
+    private static final ServiceName BASE = ServiceName.of("benchmark", "concurrent");
+
+    private final AtomicInteger nextThread = new AtomicInteger();
+    private ServiceContainer container;
+
+    @Setup(Level.Iteration)
+    public void createContainer() {
+        container = ServiceContainer.Factory.create("benchmark", false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+        container = null;
+    }
+
+    /**
+     * The names installed by a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadNames {
+        ServiceName base;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void reset(final ConcurrentInstallBenchmark benchmark) {
+            base = BASE.append(Integer.toString(benchmark.nextThread.getAndIncrement()));
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public ServiceController<?> install(final ThreadNames names) {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(names.base.append(Integer.toString(names.next++)));
+        sb.setInstance(Service.NULL);
+        sb.setInitialMode(ServiceController.Mode.ON_DEMAND);
+        return sb.install();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lock contention on a hot service. Every dependent is toggled between {@link Mode#ACTIVE} and
+ * {@link Mode#NEVER} by its own thread, so the container keeps demanding, starting and stopping the shared root
+ * while other threads read the root's state.
+ * <p>
+ * Compare the scores of two builds to see the effect of a locking change, and run with
+ * {@code -jvmArgsAppend -Djboss.msc.virtual.threads=true} to see how it behaves when services run on virtual threads.
+ */
+@State(Scope.Group)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerContentionBenchmark {
+
+    private static final ServiceName ROOT = ServiceName.of("benchmark", "root");
+
+    @Param({ "64" })
+    public int dependents;
+
+    private final AtomicInteger nextDependent = new AtomicInteger();
+    private ServiceContainer container;
+    private ServiceController<?> root;
+    private ServiceController<?>[] controllers;
+
+    @Setup
+    public void createContainer() throws InterruptedException {
+        container = ServiceContainer.Factory.create("benchmark", false);
+        ServiceBuilder<?> sb = container.addService();
+        sb.provides(ROOT);
+        sb.setInstance(Service.NULL);
+        root = sb.install();
+        controllers = new ServiceController<?>[dependents];
+        for (int i = 0; i < dependents; i++) {
+            sb = container.addService();
+            sb.provides(ROOT.append(Integer.toString(i)));
+            sb.requires(ROOT);
+            sb.setInstance(Service.NULL);
+            controllers[i] = sb.install();
+        }
+        container.awaitStability();
+    }
+
+    @TearDown
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+    }
+
+    /**
+     * The dependent owned by a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class OwnedDependent {
+        ServiceController<?> controller;
+
+        @Setup
+        public void pick(final ControllerContentionBenchmark benchmark) {
+            controller = benchmark.controllers[benchmark.nextDependent.getAndIncrement() % benchmark.dependents];
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public boolean toggleDependent(final OwnedDependent owned) {
+        final ServiceController<?> controller = owned.controller;
+        return controller.compareAndSetMode(Mode.ACTIVE, Mode.NEVER) || controller.compareAndSetMode(Mode.NEVER, Mode.ACTIVE);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public ServiceController.State readRoot() {
+        root.getMode();
+        return root.getState();
+    }
+}
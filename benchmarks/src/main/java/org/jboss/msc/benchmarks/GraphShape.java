@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.Random;
+
+/**
+ * The dependency graph shapes the benchmarks install.
+ * Every shape is described as an array of dependency indexes per service, where a service only
+ * ever depends on services with a lower index, so installing in index order installs dependencies first.
+ */
+public enum GraphShape {
+
+    /**
+     * Independent services without any dependencies.
+     */
+    FLAT {
+        @Override
+        int[] dependenciesOf(final int index, final Random random) {
+            return NO_DEPENDENCIES;
+        }
+    },
+    /**
+     * A single deep chain, every service depends on its predecessor.
+     */
+    CHAIN {
+        @Override
+        int[] dependenciesOf(final int index, final Random random) {
+            return index == 0 ? NO_DEPENDENCIES : new int[] { index - 1 };
+        }
+    },
+    /**
+     * A single root every other service depends on.
+     */
+    FAN_OUT {
+        @Override
+        int[] dependenciesOf(final int index, final Random random) {
+            return index == 0 ? NO_DEPENDENCIES : new int[] { 0 };
+        }
+    },
+    /**
+     * Layers of {@link #DIAMOND_WIDTH} services, every service depends on two neighbouring services of the previous layer.
+     */
+    DIAMOND {
+        @Override
+        int[] dependenciesOf(final int index, final Random random) {
+            if (index < DIAMOND_WIDTH) return NO_DEPENDENCIES;
+            final int previousLayer = (index / DIAMOND_WIDTH - 1) * DIAMOND_WIDTH;
+            final int column = index % DIAMOND_WIDTH;
+            return new int[] { previousLayer + column, previousLayer + (column + 1) % DIAMOND_WIDTH };
+        }
+    },
+    /**
+     * Every service depends on up to {@link #RANDOM_MAX_DEPENDENCIES} randomly chosen services installed before it.
+     */
+    RANDOM_DAG {
+        @Override
+        int[] dependenciesOf(final int index, final Random random) {
+            if (index == 0) return NO_DEPENDENCIES;
+            final int count = 1 + random.nextInt(Math.min(index, RANDOM_MAX_DEPENDENCIES));
+            final int[] dependencies = new int[count];
+            int found = 0;
+            next: while (found < count) {
+                final int candidate = random.nextInt(index);
+                for (int i = 0; i < found; i++) {
+                    if (dependencies[i] == candidate) continue next;
+                }
+                dependencies[found++] = candidate;
+            }
+            return dependencies;
+        }
+    },
+    ;
+
+    static final int DIAMOND_WIDTH = 16;
+    static final int RANDOM_MAX_DEPENDENCIES = 3;
+    private static final int[] NO_DEPENDENCIES = new int[0];
+
+    abstract int[] dependenciesOf(int index, Random random);
+
+    /**
+     * Creates the dependency graph of this shape. The same seed always produces the same graph.
+     *
+     * @param count the number of services
+     * @param seed the seed used by shapes with random edges
+     * @return the dependency indexes of every service
+     */
+    public int[][] create(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final int[][] graph = new int[count][];
+        for (int i = 0; i < count; i++) {
+            graph[i] = dependenciesOf(i, random);
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.TaskSchedulingPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to install a graph of services into a fresh container and wait until
+ * the container is stable, that is until every installed service is up.
+ * <p>
+ * Every invocation gets a new container, so container creation and shutdown are not part of the score.
+ * Run with {@code -p order=DEPENDENTS_FIRST} to measure installation in the reverse order, and with
+ * {@code -p batch=true} to install all services at once. Run with {@code -p policy=LIFO,PRIORITY} to compare
+ * task scheduling policies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class InstallBenchmark {
+
+    /**
+     * The order in which services are installed.
+     */
+    public enum InstallOrder {
+        /** Dependencies are installed before their dependents. */
+        DEPENDENCIES_FIRST,
+        /** Dependents are installed before their dependencies, so every service waits for missing dependencies. */
+        DEPENDENTS_FIRST,
+    }
+
+    @Param({ "1000", "10000", "30000" })
+    public int count;
+
+    @Param
+    public GraphShape shape;
+
+    @Param({ "DEPENDENCIES_FIRST" })
+    public InstallOrder order;
+
+    /**
+     * Whether all services are installed with a single {@link org.jboss.msc.service.ServiceTarget#installAll} call.
+     */
+    @Param({ "false" })
+    public boolean batch;
+
+    @Param({ "FIFO" })
+    public TaskSchedulingPolicy policy;
+
+    private ServiceName[] names;
+    private int[][] dependencies;
+    private ServiceContainer container;
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        names = new ServiceName[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = ServiceName.of("benchmark", shape.name(), Integer.toString(i));
+        }
+        dependencies = shape.create(count, 42L);
+    }
+
+    @Setup(Level.Invocation)
+    public void createContainer() {
+        final int threads = Math.max(Runtime.getRuntime().availableProcessors() << 1, 2);
+        container = ServiceContainer.Factory.create("benchmark", threads, 30L, TimeUnit.SECONDS, false, policy);
+    }
+
+    @TearDown(Level.Invocation)
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+        container = null;
+    }
+
+    @Benchmark
+    public ServiceContainer installAndAwaitStability() throws InterruptedException {
+        final ServiceContainer container = this.container;
+        final List<ServiceBuilder<?>> builders = batch ? new ArrayList<>(count) : null;
+        if (order == InstallOrder.DEPENDENCIES_FIRST) {
+            for (int i = 0; i < count; i++) install(container, i, builders);
+        } else {
+            for (int i = count - 1; i >= 0; i--) install(container, i, builders);
+        }
+        if (batch) container.installAll(builders);
+        container.awaitStability();
+        return container;
+    }
+
+    private void install(final ServiceContainer container, final int index, final List<ServiceBuilder<?>> builders) {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(names[index]);
+        for (int dependency : dependencies[index]) {
+            sb.requires(names[dependency]);
+        }
+        sb.setInstance(Service.NULL);
+        if (builders != null) {
+            builders.add(sb);
+        } else {
+            sb.install();
+        }
+    }
+}
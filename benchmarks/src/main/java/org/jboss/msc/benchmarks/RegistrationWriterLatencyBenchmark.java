@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long writers of a registration lock wait while readers iterate its dependents. The reader keeps
+ * stopping and starting a root service with a wide fan-out, so the root's registration is read-locked while the
+ * dependents are notified. The writer installs and removes a dependent of the same root, which needs the write lock.
+ * <p>
+ * The sample time mode reports the latency percentiles of both operations; the {@code p0.99} and {@code p0.999}
+ * scores of {@code installDependent} are the writer latency.
+ */
+@State(Scope.Group)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationWriterLatencyBenchmark {
+
+    private static final ServiceName ROOT = ServiceName.of("benchmark", "root");
+    private static final ServiceName WRITER = ServiceName.of("benchmark", "writer");
+
+    @Param({ "1000", "10000" })
+    public int dependents;
+
+    private ServiceContainer container;
+    private ServiceController<?> root;
+    private int nextWriter;
+
+    @Setup
+    public void createContainer() throws InterruptedException {
+        container = ServiceContainer.Factory.create("benchmark", false);
+        ServiceBuilder<?> sb = container.addService();
+        sb.provides(ROOT);
+        sb.setInstance(Service.NULL);
+        root = sb.install();
+        for (int i = 0; i < dependents; i++) {
+            sb = container.addService();
+            sb.provides(ROOT.append(Integer.toString(i)));
+            sb.requires(ROOT);
+            sb.setInstance(Service.NULL);
+            sb.install();
+        }
+        container.awaitStability();
+    }
+
+    @TearDown
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+    }
+
+    @Benchmark
+    @Group("fanout")
+    @GroupThreads(1)
+    public boolean toggleRoot() {
+        return root.compareAndSetMode(Mode.ACTIVE, Mode.NEVER) || root.compareAndSetMode(Mode.NEVER, Mode.ACTIVE);
+    }
+
+    @Benchmark
+    @Group("fanout")
+    @GroupThreads(1)
+    public ServiceController<?> installDependent() {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(WRITER.append(Integer.toString(nextWriter++)));
+        sb.requires(ROOT);
+        sb.setInstance(Service.NULL);
+        final ServiceController<?> controller = sb.setInitialMode(Mode.NEVER).install();
+        controller.setMode(Mode.REMOVE);
+        return controller;
+    }
+}
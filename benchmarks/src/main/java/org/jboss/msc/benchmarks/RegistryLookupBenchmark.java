@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.DuplicateServiceException;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link ServiceContainer#getService(ServiceName)} while another thread keeps
+ * installing and removing services whose names are among those being looked up, so that lookups run
+ * concurrently with writers on the same registrations.
+ */
+@State(Scope.Group)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class RegistryLookupBenchmark {
+
+    private static final ServiceName BASE = ServiceName.of("benchmark", "lookup");
+
+    /**
+     * The number of names which are installed once and stay installed.
+     */
+    @Param({ "10000" })
+    public int stable;
+
+    /**
+     * The number of names which are repeatedly installed and removed by the churn thread.
+     */
+    @Param({ "64" })
+    public int churning;
+
+    private ServiceContainer container;
+    private ServiceName[] names;
+    private ServiceController<?>[] churned;
+    private int nextChurn;
+
+    @Setup(Level.Iteration)
+    public void createContainer() {
+        container = ServiceContainer.Factory.create("benchmark", false);
+        names = new ServiceName[stable + churning];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = BASE.append(Integer.toString(i));
+        }
+        for (int i = 0; i < stable; i++) {
+            install(names[i]);
+        }
+        churned = new ServiceController<?>[churning];
+        nextChurn = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+        container = null;
+    }
+
+    private ServiceController<?> install(final ServiceName name) {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(name);
+        sb.setInstance(Service.NULL);
+        sb.setInitialMode(ServiceController.Mode.ON_DEMAND);
+        return sb.install();
+    }
+
+    @Benchmark
+    @Group("registry")
+    @GroupThreads(3)
+    public ServiceController<?> lookup() {
+        return container.getService(names[ThreadLocalRandom.current().nextInt(names.length)]);
+    }
+
+    @Benchmark
+    @Group("registry")
+    @GroupThreads(1)
+    public void churn() {
+        final int slot = nextChurn++ % churning;
+        final ServiceController<?> controller = churned[slot];
+        if (controller != null) {
+            controller.setMode(ServiceController.Mode.REMOVE);
+            churned[slot] = null;
+        } else {
+            try {
+                churned[slot] = install(names[stable + slot]);
+            } catch (DuplicateServiceException e) {
+                // the previous removal of this name has not completed yet
+            }
+        }
+    }
+}
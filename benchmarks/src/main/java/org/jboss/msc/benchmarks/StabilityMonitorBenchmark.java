@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StabilityMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full stop and start of a root service and its dependents, every one of them registered with the
+ * same stability monitors. Each transition leaving or entering a rest state updates every monitor of the
+ * controller, so this shows the cost of that fan-out when the dependents are processed concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StabilityMonitorBenchmark {
+
+    private static final ServiceName ROOT = ServiceName.of("benchmark", "root");
+
+    @Param({ "1", "8", "64" })
+    public int monitors;
+
+    @Param({ "100" })
+    public int dependents;
+
+    private ServiceContainer container;
+    private StabilityMonitor[] stabilityMonitors;
+    private ServiceController<?> root;
+
+    @Setup
+    public void createContainer() throws InterruptedException {
+        container = ServiceContainer.Factory.create("benchmark", false);
+        stabilityMonitors = new StabilityMonitor[monitors];
+        for (int i = 0; i < monitors; i++) {
+            stabilityMonitors[i] = new StabilityMonitor();
+        }
+        root = install(ROOT, null);
+        for (int i = 0; i < dependents; i++) {
+            install(ROOT.append(Integer.toString(i)), ROOT);
+        }
+        container.awaitStability();
+    }
+
+    private ServiceController<?> install(final ServiceName name, final ServiceName dependency) {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(name);
+        if (dependency != null) sb.requires(dependency);
+        sb.setInstance(Service.NULL);
+        for (StabilityMonitor monitor : stabilityMonitors) {
+            sb.addMonitor(monitor);
+        }
+        return sb.install();
+    }
+
+    @TearDown
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+    }
+
+    @Benchmark
+    public void stopAndStart() throws InterruptedException {
+        root.setMode(Mode.NEVER);
+        stabilityMonitors[0].awaitStability();
+        root.setMode(Mode.ACTIVE);
+        stabilityMonitors[0].awaitStability();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full stop and start of a root service and its dependents, every one of them going through all the
+ * transitions from {@code UP} to {@code DOWN} and back.
+ * <p>
+ * Run it with {@code -prof gc}: {@code gc.alloc.rate.norm} is the number of bytes allocated per stop and start.
+ * Transitions themselves should not allocate, so it is mostly the start and stop contexts handed to the services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransitionAllocationBenchmark {
+
+    private static final ServiceName ROOT = ServiceName.of("benchmark", "root");
+
+    @Param({ "100" })
+    public int dependents;
+
+    private ServiceContainer container;
+    private ServiceController<?> root;
+
+    @Setup
+    public void createContainer() throws InterruptedException {
+        container = ServiceContainer.Factory.create("benchmark", false);
+        ServiceBuilder<?> sb = container.addService();
+        sb.provides(ROOT);
+        sb.setInstance(Service.NULL);
+        root = sb.install();
+        for (int i = 0; i < dependents; i++) {
+            sb = container.addService();
+            sb.provides(ROOT.append(Integer.toString(i)));
+            sb.requires(ROOT);
+            sb.setInstance(Service.NULL);
+            sb.install();
+        }
+        container.awaitStability();
+    }
+
+    @TearDown
+    public void shutdownContainer() throws InterruptedException {
+        container.shutdown();
+        container.awaitTermination();
+    }
+
+    @Benchmark
+    public void stopAndStart() throws InterruptedException {
+        root.setMode(Mode.NEVER);
+        container.awaitStability();
+        root.setMode(Mode.ACTIVE);
+        container.awaitStability();
+    }
+}
@@ -23,8 +23,10 @@
 package org.jboss.msc.service;
 
 import java.io.PrintStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -72,6 +74,12 @@ public class DelegatingServiceContainer implements ServiceContainer {
         return getServiceTargetDelegate().addService();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<ServiceController<?>> installAll(final Collection<? extends ServiceBuilder<?>> builders) throws ServiceRegistryException {
+        return getServiceTargetDelegate().installAll(builders);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ServiceContainer addListener(final LifecycleListener listener) {
@@ -192,6 +200,36 @@ public class DelegatingServiceContainer implements ServiceContainer {
         throw new UnsupportedOperationException();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public CompletionStage<Void> stability() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isStable() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<ServiceTiming> getSlowestStarts(final int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<ServiceTiming> getSlowestStops(final int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public StartProfile getStartProfile() {
+        throw new UnsupportedOperationException();
+    }
+
     ////////////////////////
     // DEPRECATED METHODS //
     ////////////////////////
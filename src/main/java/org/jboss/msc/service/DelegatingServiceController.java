@@ -24,6 +24,7 @@ package org.jboss.msc.service;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -155,6 +156,11 @@ public class DelegatingServiceController<S> implements ServiceController<S> {
         return getDelegate().awaitValue(time, unit);
     }
 
+    /** {@inheritDoc} */
+    public CompletionStage<S> valueFuture() {
+        return getDelegate().valueFuture();
+    }
+
     /** {@inheritDoc} */
     @Override
     @Deprecated
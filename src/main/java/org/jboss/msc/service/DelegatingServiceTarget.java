@@ -22,6 +22,9 @@
 
 package org.jboss.msc.service;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * A service target which delegates to another service target.
  *
@@ -69,6 +72,11 @@ public class DelegatingServiceTarget implements ServiceTarget {
         return getDelegate().addService();
     }
 
+    @Override
+    public List<ServiceController<?>> installAll(final Collection<? extends ServiceBuilder<?>> builders) throws ServiceRegistryException {
+        return getDelegate().installAll(builders);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ServiceTarget subTarget() {
@@ -0,0 +1,352 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Incrementally maintained topological order of installed services, used to detect dependency cycles.
+ * <p>
+ * Every installed service gets a label such that each service is ordered before its dependents and children.
+ * A new service whose dependencies are all ordered before its dependents just gets a free label in between and no
+ * graph traversal is needed. Otherwise only the services whose labels lie between the new service's dependents
+ * and its dependencies are visited and relabeled, following the dynamic topological sort algorithm
+ * of Pearce and Kelly. A dependency cycle exists if and only if one of the new service's dependencies is
+ * reachable from one of its dependents within that region.
+ * <p>
+ * Services which are still being installed have no label yet and are ignored, and so are services being removed.
+ * Free labels are claimed under the shared lock, so concurrent installations do not block each other. A service
+ * publishes its label and then checks it against its dependencies and dependents again, all of them linked before
+ * they were labeled: of two services installed concurrently on both ends of a dependency, at least one sees the
+ * other's label, and moves to the exclusive lock if the two are out of order. Reordering and redistributing labels
+ * only happens under the exclusive lock, so the service installed last always sees the complete cycle.
+ */
+final class DependencyOrder {
+
+    /**
+     * The label of a service which is not ordered.
+     */
+    static final long UNLABELED = Long.MIN_VALUE;
+    /**
+     * The distance between labels of services appended, prepended or relabeled.
+     */
+    private static final long GAP = 1L << 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentSkipListMap<Long, ServiceControllerImpl<?>> services = new ConcurrentSkipListMap<>();
+    /**
+     * The highest label ever handed out since the last redistribution, the next appended service gets the one above.
+     */
+    private final AtomicLong highest = new AtomicLong(-GAP);
+    /**
+     * The lowest label ever handed out since the last redistribution, the next prepended service gets the one below.
+     */
+    private final AtomicLong lowest = new AtomicLong(0);
+    private final Comparator<ServiceControllerImpl<?>> byLabel = Comparator.comparingLong(controller -> controller.orderLabel);
+
+    /**
+     * Adds {@code controller} to the order.
+     *
+     * @param controller the service being installed, already linked to its dependencies, dependents and parent
+     * @return {@code false} if the service is part of a dependency cycle, in which case nothing was changed
+     */
+    boolean add(final ServiceControllerImpl<?> controller) {
+        lock.readLock().lock();
+        try {
+            if (tryAdd(controller)) return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            return reorder(controller);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds {@code controllers} to the order, starting at index {@code from}.
+     *
+     * @param controllers the services being installed together
+     * @param from the index of the first service to add
+     * @return the index of the first service which is part of a dependency cycle, or {@code -1} if all were added
+     */
+    int addAll(final List<ServiceControllerImpl<?>> controllers, final int from) {
+        for (int i = from; i < controllers.size(); i++) {
+            if (!add(controllers.get(i))) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes {@code controller} from the order.
+     *
+     * @param controller the removed service
+     */
+    void remove(final ServiceControllerImpl<?> controller) {
+        lock.readLock().lock();
+        try {
+            unlabel(controller);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Labels {@code controller} without reordering other services, under the shared lock.
+     *
+     * @return {@code false} if other services have to be reordered, in which case nothing was changed
+     */
+    private boolean tryAdd(final ServiceControllerImpl<?> controller) {
+        final List<ServiceControllerImpl<?>> predecessors = labeled(predecessors(controller));
+        final List<ServiceControllerImpl<?>> successors = labeled(successors(controller));
+        final long lower = maxLabel(predecessors);
+        final long upper = minLabel(successors);
+        if (lower >= upper) return false;
+        if (successors.isEmpty()) {
+            put(controller, highest.addAndGet(GAP));
+        } else if (predecessors.isEmpty()) {
+            put(controller, lowest.addAndGet(-GAP));
+        } else {
+            // claim a free label between the last dependency and the next label
+            for (;;) {
+                final Long next = services.higherKey(lower);
+                if (next == null || next - lower < 2) return false; // needs a redistribution
+                final long label = lower + (next - lower) / 2;
+                if (services.putIfAbsent(label, controller) == null) {
+                    controller.orderLabel = label;
+                    break;
+                }
+            }
+        }
+        // dependencies and dependents labeled concurrently are seen now, unless they see this label themselves
+        if (maxLabel(labeled(predecessors(controller))) < controller.orderLabel
+                && minLabel(labeled(successors(controller))) > controller.orderLabel) {
+            return true;
+        }
+        unlabel(controller);
+        return false;
+    }
+
+    /**
+     * Adds {@code controller} to the order, reordering other services as needed, under the exclusive lock.
+     */
+    private boolean reorder(final ServiceControllerImpl<?> controller) {
+        final List<ServiceControllerImpl<?>> predecessors = labeled(predecessors(controller));
+        final List<ServiceControllerImpl<?>> successors = labeled(successors(controller));
+        ServiceControllerImpl<?> lastPredecessor = null;
+        long lower = Long.MIN_VALUE;
+        for (ServiceControllerImpl<?> predecessor : predecessors) {
+            if (predecessor.orderLabel > lower) {
+                lower = predecessor.orderLabel;
+                lastPredecessor = predecessor;
+            }
+        }
+        final long upper = minLabel(successors);
+        if (lower < upper) {
+            // already in topological order, the shared lock lost a race or there was no free label
+            final long label;
+            if (successors.isEmpty()) {
+                label = highest.addAndGet(GAP);
+            } else if (predecessors.isEmpty()) {
+                label = lowest.addAndGet(-GAP);
+            } else {
+                label = labelAfter(lastPredecessor);
+            }
+            put(controller, label);
+            return true;
+        }
+        // services reachable from the dependents which are not ordered after the dependencies
+        final Set<ServiceControllerImpl<?>> forward = collect(successors, lower, true);
+        for (ServiceControllerImpl<?> predecessor : predecessors) {
+            if (forward.contains(predecessor)) return false;
+        }
+        // services reaching the dependencies which are not ordered before the dependents
+        final Set<ServiceControllerImpl<?>> backward = collect(predecessors, upper, false);
+        final List<ServiceControllerImpl<?>> reordered = new ArrayList<>(backward.size() + forward.size() + 1);
+        reordered.addAll(backward);
+        reordered.sort(byLabel);
+        final List<ServiceControllerImpl<?>> forwardSorted = new ArrayList<>(forward);
+        forwardSorted.sort(byLabel);
+        // the affected services keep their labels, plus one free label right after the last of them for the new service
+        final ServiceControllerImpl<?> lastBackward = reordered.get(reordered.size() - 1);
+        final ServiceControllerImpl<?> lastForward = forwardSorted.get(forwardSorted.size() - 1);
+        final long[] slots = new long[reordered.size() + forwardSorted.size() + 1];
+        slots[slots.length - 1] = labelAfter(byLabel.compare(lastBackward, lastForward) > 0 ? lastBackward : lastForward);
+        int i = 0;
+        for (ServiceControllerImpl<?> service : reordered) {
+            slots[i++] = service.orderLabel;
+        }
+        for (ServiceControllerImpl<?> service : forwardSorted) {
+            slots[i++] = service.orderLabel;
+        }
+        Arrays.sort(slots, 0, i);
+        reordered.add(controller);
+        reordered.addAll(forwardSorted);
+        for (ServiceControllerImpl<?> service : reordered) {
+            unlabel(service);
+        }
+        i = 0;
+        for (ServiceControllerImpl<?> service : reordered) {
+            put(service, slots[i++]);
+        }
+        return true;
+    }
+
+    private void put(final ServiceControllerImpl<?> controller, final long label) {
+        services.put(label, controller);
+        controller.orderLabel = label;
+    }
+
+    private void unlabel(final ServiceControllerImpl<?> controller) {
+        final long label = controller.orderLabel;
+        if (label == UNLABELED) return;
+        controller.orderLabel = UNLABELED;
+        services.remove(label, controller);
+    }
+
+    /**
+     * Returns a free label between the label of {@code service} and the next used one. If there is none,
+     * all labels are redistributed first. Only called under the exclusive lock.
+     */
+    private long labelAfter(final ServiceControllerImpl<?> service) {
+        long label = service.orderLabel;
+        Long next = services.higherKey(label);
+        if (next != null && next - label < 2) {
+            final List<ServiceControllerImpl<?>> all = new ArrayList<>(services.values());
+            services.clear();
+            long newLabel = 0;
+            for (ServiceControllerImpl<?> s : all) {
+                put(s, newLabel);
+                newLabel += GAP;
+            }
+            lowest.set(0);
+            highest.set(newLabel - GAP);
+            label = service.orderLabel;
+            next = services.higherKey(label);
+        }
+        if (next == null) {
+            // keep the next appended label above this one
+            highest.accumulateAndGet(label + GAP, Math::max);
+            return label + GAP;
+        }
+        return label + (next - label) / 2;
+    }
+
+    /**
+     * Removes the services which are not ordered, because they are still being installed or are being removed.
+     */
+    private static List<ServiceControllerImpl<?>> labeled(final List<ServiceControllerImpl<?>> controllers) {
+        controllers.removeIf(controller -> !isOrdered(controller));
+        return controllers;
+    }
+
+    private static long maxLabel(final List<ServiceControllerImpl<?>> controllers) {
+        long max = Long.MIN_VALUE;
+        for (ServiceControllerImpl<?> controller : controllers) {
+            max = Math.max(max, controller.orderLabel);
+        }
+        return max;
+    }
+
+    private static long minLabel(final List<ServiceControllerImpl<?>> controllers) {
+        long min = Long.MAX_VALUE;
+        for (ServiceControllerImpl<?> controller : controllers) {
+            min = Math.min(min, controller.orderLabel);
+        }
+        return min;
+    }
+
+    /**
+     * Collects the labeled services reachable from {@code roots} whose label is not above (forward) or
+     * not below (backward) {@code bound}.
+     */
+    private Set<ServiceControllerImpl<?>> collect(final List<ServiceControllerImpl<?>> roots, final long bound, final boolean forward) {
+        final Set<ServiceControllerImpl<?>> visited = new IdentityHashSet<>();
+        final Deque<ServiceControllerImpl<?>> stack = new ArrayDeque<>();
+        for (ServiceControllerImpl<?> root : roots) {
+            if (inRegion(root, bound, forward) && visited.add(root)) stack.push(root);
+        }
+        ServiceControllerImpl<?> current;
+        while ((current = stack.poll()) != null) {
+            for (ServiceControllerImpl<?> next : forward ? successors(current) : predecessors(current)) {
+                if (isOrdered(next) && inRegion(next, bound, forward) && visited.add(next)) stack.push(next);
+            }
+        }
+        return visited;
+    }
+
+    private static boolean isOrdered(final ServiceControllerImpl<?> controller) {
+        return controller.orderLabel != UNLABELED && controller.getState() != ServiceController.State.REMOVED;
+    }
+
+    private static boolean inRegion(final ServiceControllerImpl<?> controller, final long bound, final boolean forward) {
+        final long label = controller.orderLabel;
+        return forward ? label <= bound : label >= bound;
+    }
+
+    private static List<ServiceControllerImpl<?>> predecessors(final ServiceControllerImpl<?> controller) {
+        final List<ServiceControllerImpl<?>> result = new ArrayList<>();
+        ServiceControllerImpl<?> predecessor;
+        for (Dependency dependency : controller.getDependencies()) {
+            predecessor = dependency.getDependencyController();
+            if (predecessor != null) result.add(predecessor);
+        }
+        predecessor = controller.getParent();
+        if (predecessor != null) result.add(predecessor);
+        return result;
+    }
+
+    private static List<ServiceControllerImpl<?>> successors(final ServiceControllerImpl<?> controller) {
+        final List<ServiceControllerImpl<?>> result = new ArrayList<>();
+        for (ServiceRegistrationImpl registration : controller.getRegistrations()) {
+            registration.lock();
+            try {
+                if (registration.getDependencyController() != controller) continue; // concurrent removal
+                for (Dependent dependent : registration.getDependents()) {
+                    result.add(dependent.getDependentController());
+                }
+            } finally {
+                registration.unlock();
+            }
+        }
+        controller.lock();
+        try {
+            result.addAll(controller.getChildren());
+        } finally {
+            controller.unlock();
+        }
+        return result;
+    }
+
+}
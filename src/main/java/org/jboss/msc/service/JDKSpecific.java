@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.concurrent.Executor;
+
+/**
+ * JDK specific code. This is the baseline version, newer JDKs get their own copy in the multi-release part of the jar.
+ */
+final class JDKSpecific {
+
+    private JDKSpecific() {
+        // forbidden instantiation
+    }
+
+    /**
+     * Creates an executor running every task on its own virtual thread.
+     *
+     * @param threadNamePrefix the prefix of thread names
+     * @param handler the handler of uncaught exceptions
+     * @return the executor or {@code null} if this JDK does not support virtual threads
+     */
+    static Executor newVirtualThreadExecutor(final String threadNamePrefix, final Thread.UncaughtExceptionHandler handler) {
+        return null;
+    }
+
+    /**
+     * Begins the flight recorder event timing a service start.
+     *
+     * @return the event or {@code null} if it is not recorded
+     */
+    static Object beginStartEvent() {
+        return null;
+    }
+
+    /**
+     * Begins the flight recorder event timing a service stop.
+     *
+     * @return the event or {@code null} if it is not recorded
+     */
+    static Object beginStopEvent() {
+        return null;
+    }
+
+    /**
+     * Commits the flight recorder event timing a service start or stop.
+     *
+     * @param event the event returned by {@link #beginStartEvent()} or {@link #beginStopEvent()}
+     * @param controller the controller of the service
+     */
+    static void commitLifecycleEvent(final Object event, final ServiceControllerImpl<?> controller) {
+    }
+
+    /**
+     * Records a flight recorder event for a failed service start.
+     *
+     * @param controller the controller of the service
+     * @param cause the start failure
+     */
+    static void recordFailure(final ServiceControllerImpl<?> controller, final StartException cause) {
+    }
+
+    /**
+     * Records a flight recorder event for a controller transition.
+     *
+     * @param controller the controller
+     * @param transition the transition
+     * @param duration the time spent in the state it leaves, in nanoseconds
+     */
+    static void recordTransition(final ServiceControllerImpl<?> controller, final Transition transition, final long duration) {
+    }
+
+    /**
+     * Begins the flight recorder event timing a wait for stability.
+     *
+     * @return the event or {@code null} if it is not recorded
+     */
+    static Object beginStabilityEvent() {
+        return null;
+    }
+
+    /**
+     * Commits the flight recorder event timing a wait for stability.
+     *
+     * @param event the event returned by {@link #beginStabilityEvent()}
+     * @param container the container
+     * @param stable {@code true} if the container became stable, {@code false} if the wait timed out or was interrupted
+     */
+    static void commitStabilityEvent(final Object event, final ServiceContainerImpl container, final boolean stable) {
+    }
+
+    /**
+     * Wraps a task submitted to the container executor to record the time it waits in its queue.
+     *
+     * @param task the task
+     * @return the task to submit instead, which is the task itself if queueing is not recorded
+     */
+    static Runnable recordQueueing(final Runnable task) {
+        return task;
+    }
+}
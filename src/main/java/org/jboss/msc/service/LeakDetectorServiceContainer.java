@@ -23,8 +23,10 @@
 package org.jboss.msc.service;
 
 import java.io.PrintStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -92,6 +94,16 @@ final class LeakDetectorServiceContainer implements ServiceContainer {
         return getDelegate().awaitStability(timeout, unit, failed, problem);
     }
 
+    @Override
+    public CompletionStage<Void> stability() {
+        return getDelegate().stability();
+    }
+
+    @Override
+    public boolean isStable() {
+        return getDelegate().isStable();
+    }
+
     @Override
     public void dumpServices() {
         getDelegate().dumpServices();
@@ -107,6 +119,21 @@ final class LeakDetectorServiceContainer implements ServiceContainer {
         return getDelegate().getName();
     }
 
+    @Override
+    public List<ServiceTiming> getSlowestStarts(final int count) {
+        return getDelegate().getSlowestStarts(count);
+    }
+
+    @Override
+    public List<ServiceTiming> getSlowestStops(final int count) {
+        return getDelegate().getSlowestStops(count);
+    }
+
+    @Override
+    public StartProfile getStartProfile() {
+        return getDelegate().getStartProfile();
+    }
+
     @Override
     public ServiceController<?> getRequiredService(final ServiceName serviceName) throws ServiceNotFoundException {
         return getDelegate().getRequiredService(serviceName);
@@ -137,6 +164,11 @@ final class LeakDetectorServiceContainer implements ServiceContainer {
         return getDelegate().addService();
     }
 
+    @Override
+    public List<ServiceController<?>> installAll(final Collection<? extends ServiceBuilder<?>> builders) throws ServiceRegistryException {
+        return getDelegate().installAll(builders);
+    }
+
     @Override
     public ServiceTarget subTarget() {
         return getDelegate().subTarget();
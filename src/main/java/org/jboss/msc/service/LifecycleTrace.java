@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A recording of the starts and stops of the services of a container, written in the Chrome Trace Event format
+ * understood by {@code chrome://tracing} and Perfetto. It is only created when the {@code jboss.msc.lifecycle.trace}
+ * system property is {@code true} because every start and stop allocates an event.
+ */
+final class LifecycleTrace {
+
+    /**
+     * The maximum number of recorded events; later starts and stops are dropped.
+     */
+    static final int MAX_EVENTS = 1 << 20;
+
+    private final long origin = System.nanoTime();
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Record a start or a stop.
+     *
+     * @param name the service name, or the names of its provided values if it has none
+     * @param start {@code true} for a start, {@code false} for a stop
+     * @param failed {@code true} if the start failed
+     * @param async {@code true} if the service completed asynchronously
+     * @param thread the thread which called the service, or {@code null} if it was not called
+     * @param scheduled the system nanotime in which the service started starting or stopping
+     * @param called the system nanotime in which the service was called
+     * @param returned the system nanotime in which the service call returned
+     * @param completed the system nanotime in which the start or the stop completed
+     */
+    void record(final String name, final boolean start, final boolean failed, final boolean async, final Thread thread, final long scheduled, final long called, final long returned, final long completed) {
+        if (size.getAndIncrement() >= MAX_EVENTS) {
+            size.decrementAndGet();
+            return;
+        }
+        events.add(new Event(name, start, failed, async, thread == null ? -1L : thread.getId(), thread == null ? null : thread.getName(),
+                scheduled - origin, called - origin, returned - origin, completed - origin));
+    }
+
+    /**
+     * Write the recorded events as a Chrome Trace Event JSON document. Each service call is a complete event on the
+     * thread which made it; starts and stops completing asynchronously get an additional async event lasting until
+     * their completion.
+     *
+     * @param containerName the container name
+     * @param out the writer to write to
+     * @throws IOException if writing fails
+     */
+    void write(final String containerName, final Writer out) throws IOException {
+        final Map<Long, String> threads = new HashMap<>();
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        out.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":");
+        writeString(out, "MSC container " + containerName);
+        out.write("}}");
+        int id = 0;
+        for (Event event : events) {
+            if (event.threadName == null) continue;
+            threads.putIfAbsent(event.threadId, event.threadName);
+            out.write(",\n{\"name\":");
+            writeString(out, event.name);
+            out.write(",\"cat\":\"");
+            out.write(event.start ? "start" : "stop");
+            out.write("\",\"ph\":\"X\",\"pid\":1,\"tid\":");
+            out.write(Long.toString(event.threadId));
+            out.write(",\"ts\":");
+            writeMicros(out, event.called);
+            out.write(",\"dur\":");
+            writeMicros(out, event.returned - event.called);
+            out.write(",\"args\":{\"queued\":");
+            writeMicros(out, event.called - event.scheduled);
+            if (event.failed) out.write(",\"failed\":true");
+            out.write("}}");
+            if (event.async) {
+                id++;
+                for (int i = 0; i < 2; i++) {
+                    out.write(",\n{\"name\":");
+                    writeString(out, event.name);
+                    out.write(event.start ? ",\"cat\":\"async start\",\"ph\":\"" : ",\"cat\":\"async stop\",\"ph\":\"");
+                    out.write(i == 0 ? 'b' : 'e');
+                    out.write("\",\"id\":");
+                    out.write(Integer.toString(id));
+                    out.write(",\"pid\":1,\"tid\":");
+                    out.write(Long.toString(event.threadId));
+                    out.write(",\"ts\":");
+                    writeMicros(out, i == 0 ? event.called : event.completed);
+                    out.write('}');
+                }
+            }
+        }
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            out.write(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+            out.write(thread.getKey().toString());
+            out.write(",\"args\":{\"name\":");
+            writeString(out, thread.getValue());
+            out.write("}}");
+        }
+        out.write("\n]}\n");
+    }
+
+    private static void writeMicros(final Writer out, final long nanos) throws IOException {
+        final long n = Math.max(0L, nanos);
+        out.write(Long.toString(n / 1000));
+        out.write('.');
+        final String fraction = Long.toString(n % 1000);
+        for (int i = fraction.length(); i < 3; i++) out.write('0');
+        out.write(fraction);
+    }
+
+    private static void writeString(final Writer out, final String s) throws IOException {
+        out.write('"');
+        char c;
+        for (int i = 0; i < s.length(); i++) {
+            c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static final class Event {
+        private final String name;
+        private final boolean start;
+        private final boolean failed;
+        private final boolean async;
+        private final long threadId;
+        private final String threadName;
+        private final long scheduled;
+        private final long called;
+        private final long returned;
+        private final long completed;
+
+        private Event(final String name, final boolean start, final boolean failed, final boolean async, final long threadId, final String threadName, final long scheduled, final long called, final long returned, final long completed) {
+            this.name = name;
+            this.start = start;
+            this.failed = failed;
+            this.async = async;
+            this.threadId = threadId;
+            this.threadName = threadName;
+            this.scheduled = scheduled;
+            this.called = called;
+            this.returned = returned;
+            this.completed = completed;
+        }
+    }
+}
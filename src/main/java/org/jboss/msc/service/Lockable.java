@@ -22,38 +22,39 @@
 
 package org.jboss.msc.service;
 
-import static java.lang.Thread.holdsLock;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Utility locking class requiring its intrinsic lock being held while calling its methods.
- * This implementation heavily favors reader threads against writer threads.
+ * Utility read / write locking class.
+ * This implementation favors writer threads against reader threads: once a writer is waiting for the write lock,
+ * new readers are blocked until the writer has released it.
+ * Uncontended read locks are acquired and released with a single atomic update, without touching
+ * the {@link #lock() mutual exclusion lock}.
+ * Its {@link #lock() mutual exclusion lock} guards the state of subclasses, the write lock is the mutual exclusion
+ * lock held while no read locks are held.
  *
  * <p></p>
  * Example of read lock usage:
  * <pre>
  *     Lockable lock = ...
- *     synchronized (lock) {
- *         lock.acquireRead();
- *     }
+ *     lock.acquireRead();
  *     try {
  *         // ... do read-locked work here
  *     } finally {
- *         synchronized (lock) {
- *             lock.releaseRead();
- *         }
+ *         lock.releaseRead();
  *     }
  * </pre>
  * <p></p>
  * Example of write lock usage:
  * <pre>
  *     Lockable lock = ...
- *     synchronized (lock) {
- *         lock.acquireWrite();
- *         try {
- *             // ... do write-locked work here
- *         } finally {
- *             lock.releaseWrite();
- *         }
+ *     lock.acquireWrite();
+ *     try {
+ *         // ... do write-locked work here
+ *     } finally {
+ *         lock.releaseWrite();
  *     }
  * </pre>
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -62,54 +63,118 @@ import static java.lang.Thread.holdsLock;
 class Lockable {
 
     /**
-     * Number of read locks being held.
+     * Set in {@link #readState} while a writer is waiting for or holding the write lock.
+     */
+    private static final int WRITER = 1 << 31;
+    /**
+     * Mask of the number of read locks being held in {@link #readState}.
+     */
+    private static final int READERS_MASK = ~WRITER;
+
+    private static final AtomicIntegerFieldUpdater<Lockable> readStateUpdater = AtomicIntegerFieldUpdater.newUpdater(Lockable.class, "readState");
+
+    /**
+     * The mutual exclusion lock.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled when all read locks have been released.
+     */
+    private final Condition readLocksReleased = lock.newCondition();
+    /**
+     * Signalled when the write lock is released.
+     */
+    private final Condition writeLockReleased = lock.newCondition();
+    /**
+     * Number of read locks being held, combined with the {@link #WRITER} flag.
+     * The flag is only modified while holding the mutual exclusion lock.
+     */
+    @SuppressWarnings("unused")
+    private volatile int readState;
+
+    /**
+     * Acquires the mutual exclusion lock. It neither waits for read locks to be released
+     * nor prevents them from being released.
      */
-    private int readLocksCount;
+    final void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Releases the mutual exclusion lock.
+     */
+    final void unlock() {
+        lock.unlock();
+    }
 
     /**
-     * Acquires read lock. Must be called under the intrinsic lock.
+     * Acquires read lock.
      * The read lock may be held simultaneously by multiple reader threads.
      */
     final void acquireRead() {
-        assert holdsLock(this);
-        readLocksCount++;
+        int state = readState;
+        while ((state & WRITER) == 0) {
+            if (readStateUpdater.compareAndSet(this, state, state + 1)) return;
+            state = readState;
+        }
+        // a writer is waiting or active
+        lock.lock();
+        try {
+            while ((readState & WRITER) != 0) {
+                writeLockReleased.awaitUninterruptibly();
+            }
+            // the flag cannot be set while we hold the lock
+            readStateUpdater.incrementAndGet(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Releases read lock. Must be called under the intrinsic lock.
-     * The write lock is exclusive.
+     * Releases read lock.
      */
     final void releaseRead() {
-        assert holdsLock(this);
-        if (--readLocksCount == 0) notify();
+        final int state = readStateUpdater.decrementAndGet(this);
+        assert (state & READERS_MASK) != READERS_MASK;
+        if (state == WRITER) {
+            // last reader gone and a writer is waiting
+            lock.lock();
+            try {
+                readLocksReleased.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     /**
-     * Acquires write lock. Must be called under the intrinsic lock.
+     * Acquires write lock.
      * Write lock is available if and only if all read locks have been released.
+     * The write lock is exclusive.
      */
     final void acquireWrite() {
-        assert holdsLock(this);
-        if (readLocksCount > 0) {
-            boolean intr = Thread.interrupted();
-            try {
-                do try {
-                    wait();
-                } catch (InterruptedException ignored) {
-                    intr = true;
-                } while (readLocksCount > 0);
-            } finally {
-                if (intr) Thread.currentThread().interrupt();
-            }
+        lock.lock();
+        while ((readState & WRITER) != 0) {
+            writeLockReleased.awaitUninterruptibly();
+        }
+        int state;
+        do {
+            state = readState;
+        } while (!readStateUpdater.compareAndSet(this, state, state | WRITER));
+        while ((readState & READERS_MASK) != 0) {
+            readLocksReleased.awaitUninterruptibly();
         }
     }
 
     /**
-     * Releases write lock. Must be called under the intrinsic lock.
+     * Releases write lock.
      */
     final void releaseWrite() {
-        assert holdsLock(this);
-        notify();
+        // readers cannot register while the flag is set
+        assert readState == WRITER;
+        readState = 0;
+        writeLockReleased.signalAll();
+        lock.unlock();
     }
 
     /**
@@ -117,7 +182,7 @@ class Lockable {
      * @return <code>true</code> if write locked <code>false</code> otherwise
      */
     final boolean isWriteLocked() {
-        return holdsLock(this) && readLocksCount == 0;
+        return lock.isHeldByCurrentThread() && readState == WRITER;
     }
 
 }
@@ -46,6 +46,23 @@ final class SecurityUtils {
         }
     }
 
+    static boolean getSystemProperty(final String propertyName, final boolean defaultValue) {
+        final GetBooleanSystemPropertyAction action = new GetBooleanSystemPropertyAction(propertyName, defaultValue);
+        if (getSecurityManager() != null) {
+            return doPrivileged(action);
+        } else {
+            return action.run();
+        }
+    }
+
+    static String getSystemProperty(final String propertyName, final String defaultValue) {
+        if (getSecurityManager() != null) {
+            return doPrivileged(new GetStringSystemPropertyAction(propertyName, defaultValue));
+        } else {
+            return System.getProperty(propertyName, defaultValue);
+        }
+    }
+
     static ClassLoader getCL(final Class<?> clazz) {
         if (getSecurityManager() != null) {
             return doPrivileged(new GetCLAction(clazz));
@@ -123,6 +140,35 @@ final class SecurityUtils {
         }
     }
 
+    private static final class GetBooleanSystemPropertyAction implements PrivilegedAction<Boolean> {
+        private final String propertyName;
+        private final boolean defaultValue;
+
+        GetBooleanSystemPropertyAction(final String propertyName, final boolean defaultValue) {
+            this.propertyName = propertyName;
+            this.defaultValue = defaultValue;
+        }
+
+        public Boolean run() {
+            final String value = System.getProperty(propertyName);
+            return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+        }
+    }
+
+    private static final class GetStringSystemPropertyAction implements PrivilegedAction<String> {
+        private final String propertyName;
+        private final String defaultValue;
+
+        GetStringSystemPropertyAction(final String propertyName, final String defaultValue) {
+            this.propertyName = propertyName;
+            this.defaultValue = defaultValue;
+        }
+
+        public String run() {
+            return System.getProperty(propertyName, defaultValue);
+        }
+    }
+
     private static final class GetCLAction implements PrivilegedAction<ClassLoader> {
         private final Class clazz;
 
@@ -182,10 +182,26 @@ final class ServiceBuilderImpl<T> implements ServiceBuilder<T> {
         assertNotInstalled();
         assertThreadSafety();
         // implementation
+        markInstalled();
+        return serviceTarget.install(this);
+    }
+
+    /**
+     * Checks that this builder can be installed by {@link ServiceTarget#installAll(Collection)}.
+     */
+    void assertInstallable() {
+        assertNotInstalled();
+        assertThreadSafety();
+    }
+
+    void markInstalled() {
         installed = true;
         if (service == null) service = Service.NULL;
         if (initialMode == null) initialMode = ServiceController.Mode.ACTIVE;
-        return serviceTarget.install(this);
+    }
+
+    ServiceTargetImpl getServiceTarget() {
+        return serviceTarget;
     }
 
     // deprecated methods
@@ -289,10 +305,13 @@ final class ServiceBuilderImpl<T> implements ServiceBuilder<T> {
     Set<StabilityMonitor> getMonitors() {
         ServiceControllerImpl parent = this.parent;
         while (parent != null) {
-            synchronized (parent) {
+            parent.lock();
+            try {
                 addMonitorsNoCheck(parent.getMonitors());
-                parent = parent.getParent();
+            } finally {
+                parent.unlock();
             }
+            parent = parent.getParent();
         }
         return monitors == null ? Collections.emptySet() : monitors;
     }
@@ -26,7 +26,10 @@ import static org.jboss.msc.service.SecurityUtils.getSystemProperty;
 
 import java.io.PrintStream;
 import java.lang.ref.Cleaner;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -126,6 +129,23 @@ public interface ServiceContainer extends ServiceTarget, ServiceRegistry {
      */
     boolean awaitStability(long timeout, TimeUnit unit, Set<? super ServiceController<?>> failed, Set<? super ServiceController<?>> problem) throws InterruptedException;
 
+    /**
+     * Get a stage completing once the container is stable, without blocking the current thread. The stage is
+     * already complete if the container is stable. Otherwise it is completed by a thread of the container executor
+     * once the container becomes stable, so dependent actions which may block should use the asynchronous methods
+     * of the stage.
+     *
+     * @return the stage
+     */
+    CompletionStage<Void> stability();
+
+    /**
+     * Determine whether the container is stable at this moment, without waiting.
+     *
+     * @return {@code true} if the container is stable
+     */
+    boolean isStable();
+
     /**
      * Dump a complete list of services to {@code System.out}.
      */
@@ -145,8 +165,44 @@ public interface ServiceContainer extends ServiceTarget, ServiceRegistry {
      */
     String getName();
 
+    /**
+     * Get the services of this container which took the longest to start, slowest first. The time of a start is
+     * the time the service spent {@link ServiceController.State#STARTING starting} the last time it did, from
+     * the scheduling of its {@link org.jboss.msc.Service#start(StartContext) start} to its completion.
+     *
+     * @param count the maximum number of services to return
+     * @return the slowest starts
+     */
+    List<ServiceTiming> getSlowestStarts(int count);
+
+    /**
+     * Get the services of this container which took the longest to stop, slowest first. The time of a stop is
+     * the time the service spent {@link ServiceController.State#STOPPING stopping} the last time it did, from
+     * the scheduling of its {@link org.jboss.msc.Service#stop(StopContext) stop} to its completion.
+     *
+     * @param count the maximum number of services to return
+     * @return the slowest stops
+     */
+    List<ServiceTiming> getSlowestStops(int count);
+
+    /**
+     * Get the profile of the last starts of the services of this container, typically called once
+     * {@link #awaitStability()} returned after a boot. The profile holds the critical path of the starts,
+     * that is the chain of dependencies which finished starting last, and the number of services
+     * {@link ServiceController.State#STARTING starting} over time.
+     *
+     * @return the start profile
+     */
+    StartProfile getStartProfile();
+
     /**
      * The factory class for service containers.
+     * <p>
+     * On Java 21 and newer, setting the {@code jboss.msc.virtual.threads} system property to {@code true} makes
+     * containers run service {@link org.jboss.msc.Service#start(StartContext) start} and
+     * {@link org.jboss.msc.Service#stop(StopContext) stop} methods, as well as the tasks submitted to
+     * {@link LifecycleContext#execute(Runnable)}, on virtual threads. All the other container tasks stay on the
+     * container executor. The property is ignored on older JDKs.
      */
     class Factory {
 
@@ -250,7 +306,102 @@ public interface ServiceContainer extends ServiceTarget, ServiceRegistry {
          * @return a new service container instance
          */
         public static ServiceContainer create(String name, int coreSize, long keepAliveTime, TimeUnit keepAliveTimeUnit, boolean autoShutdown) {
-            final ServiceContainerImpl container = new ServiceContainerImpl(name, calculateCoreSize(coreSize), keepAliveTime, keepAliveTimeUnit, autoShutdown);
+            return create(name, coreSize, keepAliveTime, keepAliveTimeUnit, autoShutdown, TaskSchedulingPolicy.getDefault());
+        }
+
+        /**
+         * Create a new instance with a given name, specified initial thread pool settings and task scheduling policy.
+         * Unless given here, the policy is selected by the {@code jboss.msc.task.scheduling.policy} system property.
+         *
+         * @param name the name of the new container
+         * @param coreSize the core pool size (must be greater than zero)
+         * @param keepAliveTime the amount of time that non-core threads should linger without tasks
+         * @param keepAliveTimeUnit the time unit for {@code keepAliveTime}
+         * @param autoShutdown {@code true} to automatically shut down the container at VM exit, {@code false} otherwise
+         * @param policy the order to run tasks waiting for a container thread in (must not be {@code null})
+         * @return a new service container instance
+         */
+        public static ServiceContainer create(String name, int coreSize, long keepAliveTime, TimeUnit keepAliveTimeUnit, boolean autoShutdown, TaskSchedulingPolicy policy) {
+            if (policy == null) {
+                throw new IllegalArgumentException("policy is null");
+            }
+            return register(new ServiceContainerImpl(name, calculateCoreSize(coreSize), keepAliveTime, keepAliveTimeUnit, autoShutdown, policy));
+        }
+
+        /**
+         * Create a new instance with a generated name running its tasks on the given executor.
+         * <p>
+         * The executor is owned by the caller and it is never shut down by the container. The container terminates
+         * once all of its services were removed and all tasks it submitted to the executor completed.
+         * The executor must run submitted tasks asynchronously and it should not reject them.
+         *
+         * @param executor the executor to run container tasks (must not be {@code null})
+         * @return a new service container instance
+         */
+        public static ServiceContainer create(Executor executor) {
+            return create(null, executor, true);
+        }
+
+        /**
+         * Create a new instance with a given name running its tasks on the given executor.
+         *
+         * @param name the name of the new container
+         * @param executor the executor to run container tasks (must not be {@code null})
+         * @return a new service container instance
+         * @see #create(Executor)
+         */
+        public static ServiceContainer create(String name, Executor executor) {
+            return create(name, executor, true);
+        }
+
+        /**
+         * Create a new instance with a generated name running its tasks on the given executor.
+         *
+         * @param executor the executor to run container tasks (must not be {@code null})
+         * @param autoShutdown {@code true} to automatically shut down the container at VM exit, {@code false} otherwise
+         * @return a new service container instance
+         * @see #create(Executor)
+         */
+        public static ServiceContainer create(Executor executor, boolean autoShutdown) {
+            return create(null, executor, autoShutdown);
+        }
+
+        /**
+         * Create a new instance with a given name running its tasks on the given executor.
+         *
+         * @param name the name of the new container
+         * @param executor the executor to run container tasks (must not be {@code null})
+         * @param autoShutdown {@code true} to automatically shut down the container at VM exit, {@code false} otherwise
+         * @return a new service container instance
+         * @see #create(Executor)
+         */
+        public static ServiceContainer create(String name, Executor executor, boolean autoShutdown) {
+            return create(name, executor, autoShutdown, TaskSchedulingPolicy.getDefault());
+        }
+
+        /**
+         * Create a new instance with a given name and task scheduling policy running its tasks on the given executor.
+         * With a policy other than {@link TaskSchedulingPolicy#FIFO FIFO}, the container keeps its waiting tasks
+         * itself and each task it submits to the executor runs whichever of them the policy prefers.
+         *
+         * @param name the name of the new container
+         * @param executor the executor to run container tasks (must not be {@code null})
+         * @param autoShutdown {@code true} to automatically shut down the container at VM exit, {@code false} otherwise
+         * @param policy the order to run tasks waiting for a container thread in (must not be {@code null})
+         * @return a new service container instance
+         * @see #create(Executor)
+         */
+        public static ServiceContainer create(String name, Executor executor, boolean autoShutdown, TaskSchedulingPolicy policy) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            if (policy == null) {
+                throw new IllegalArgumentException("policy is null");
+            }
+            return register(new ServiceContainerImpl(name, executor, autoShutdown, policy));
+        }
+
+        private static ServiceContainer register(final ServiceContainerImpl container) {
             container.registerShutdownCleaner();
             container.registerMBeanCleaner();
             final ServiceContainer retVal = new LeakDetectorServiceContainer(container);
@@ -23,6 +23,7 @@
 package org.jboss.msc.service;
 
 import static java.security.AccessController.doPrivileged;
+import static org.jboss.msc.service.SecurityUtils.getSystemProperty;
 
 import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
@@ -33,29 +34,38 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Hashtable;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import javax.management.MBeanServer;
@@ -74,6 +84,11 @@ import org.jboss.threads.EnhancedQueueExecutor;
 final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceContainer {
 
     private static final AtomicInteger SERIAL = new AtomicInteger(1);
+    private static final int INSTALLATION_STRIPES = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors() * 2) - 1) << 1;
+    /**
+     * Stripes are 128 bytes apart so that they do not share cache lines.
+     */
+    private static final int INSTALLATION_STRIPE_PADDING = 16;
     private static final MBeanServer MBEAN_SERVER;
 
     static {
@@ -90,12 +105,32 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
 
     private final ConcurrentMap<ServiceName, ServiceRegistrationImpl> registry = new ConcurrentHashMap<>(512);
     private final long start = System.nanoTime();
+    private final DependencyOrder dependencyOrder = new DependencyOrder();
 
-    private final Set<ServiceController<?>> problems = new IdentityHashSet<>();
-    private final Set<ServiceController<?>> failed = new IdentityHashSet<>();
-    private final Object lock = new Object();
+    private final Set<ServiceController<?>> problems = ConcurrentHashMap.newKeySet();
+    private final Set<ServiceController<?>> failed = ConcurrentHashMap.newKeySet();
+    /**
+     * Guards {@link #stable}. It is only acquired by threads waiting for stability
+     * and by the thread which observed the unstable services count dropping to zero.
+     */
+    private final Lock lock = new ReentrantLock();
+    private final Condition stable = lock.newCondition();
+    /**
+     * Futures returned by {@link #stability()} before the container became stable, guarded by {@link #lock}.
+     */
+    private final List<CompletableFuture<Void>> stabilityFutures = new ArrayList<>();
+
+    @SuppressWarnings("unused")
+    private volatile int unstableServices;
+    /**
+     * The number of threads and {@link #stabilityFutures} waiting for stability. It is read after the unstable
+     * services count drops to zero so the lock is only taken when somebody needs to be woken up.
+     */
+    @SuppressWarnings("unused")
+    private volatile int stabilityWaiters;
 
-    private int unstableServices;
+    private static final AtomicIntegerFieldUpdater<ServiceContainerImpl> unstableServicesUpdater = AtomicIntegerFieldUpdater.newUpdater(ServiceContainerImpl.class, "unstableServices");
+    private static final AtomicIntegerFieldUpdater<ServiceContainerImpl> stabilityWaitersUpdater = AtomicIntegerFieldUpdater.newUpdater(ServiceContainerImpl.class, "stabilityWaiters");
     private long shutdownInitiated;
 
     private final List<TerminateListener> terminateListeners = new ArrayList<>(1);
@@ -125,24 +160,50 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
     private volatile TerminateListener.Info terminateInfo;
 
     private volatile boolean down;
+    /**
+     * Number of installations in progress, striped by thread to avoid contention between installing threads.
+     * An installation registers itself before checking {@link #down}, and {@link #shutdown()} waits for all
+     * stripes to drain after setting it, so every installation either sees the container going down or is
+     * seen by shutdown.
+     */
+    private final AtomicLongArray installations = new AtomicLongArray(INSTALLATION_STRIPES * INSTALLATION_STRIPE_PADDING);
+    /**
+     * Monitor {@link #shutdown()} waits on for installations to drain, notified by the last installation leaving a stripe.
+     */
+    private final Object installationsLock = new Object();
 
     private final ContainerExecutor executor;
+    private final Executor lifecycleExecutor;
 
     private final String name;
     private final ObjectName objectName;
     private final Thread shutdownThread;
 
+    private final TransitionHistograms transitionHistograms = new TransitionHistograms();
+    private final LifecycleTrace lifecycleTrace = getSystemProperty("jboss.msc.lifecycle.trace", false) ? new LifecycleTrace() : null;
     private final ServiceContainerMXBeanImpl containerMXBean;
 
-    ServiceContainerImpl(String name, int coreSize, long timeOut, TimeUnit timeOutUnit, final boolean autoShutdown) {
+    ServiceContainerImpl(String name, int coreSize, long timeOut, TimeUnit timeOutUnit, final boolean autoShutdown, final TaskSchedulingPolicy policy) {
+        this(name, null, coreSize, timeOut, timeOutUnit, autoShutdown, policy);
+    }
+
+    ServiceContainerImpl(String name, final Executor executor, final boolean autoShutdown, final TaskSchedulingPolicy policy) {
+        this(name, executor, 0, 0L, null, autoShutdown, policy);
+    }
+
+    private ServiceContainerImpl(String name, final Executor executor, int coreSize, long timeOut, TimeUnit timeOutUnit, final boolean autoShutdown, final TaskSchedulingPolicy policy) {
         final int serialNo = SERIAL.getAndIncrement();
         if (name == null) {
             name = String.format("anonymous-%d", Integer.valueOf(serialNo));
         }
         this.name = name;
-        executor = new ContainerExecutor(coreSize, coreSize, timeOut, timeOutUnit);
+        this.executor = executor != null ? new ContainerExecutor(executor, policy) : new ContainerExecutor(coreSize, coreSize, timeOut, timeOutUnit, policy);
+        // whether service start and stop tasks should run on virtual threads (requires Java 21 or newer)
+        final boolean virtualThreads = getSystemProperty("jboss.msc.virtual.threads", false);
+        final Executor virtualThreadExecutor = virtualThreads ? JDKSpecific.newVirtualThreadExecutor(String.format("MSC virtual service thread %d-", Integer.valueOf(serialNo)), HANDLER) : null;
+        this.lifecycleExecutor = virtualThreadExecutor != null ? virtualThreadExecutor : this.executor;
         ObjectName objectName = null;
-        containerMXBean = new ServiceContainerMXBeanImpl(name, registry);
+        containerMXBean = new ServiceContainerMXBeanImpl(name, registry, transitionHistograms, lifecycleTrace);
         if (MBEAN_SERVER != null) {
             try {
                 Hashtable<String, String> properties = new Hashtable<>();
@@ -191,48 +252,228 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
     }
 
     void removeProblem(ServiceController<?> controller) {
-        synchronized (lock) {
-            problems.remove(controller);
-        }
+        problems.remove(controller);
     }
 
     void removeFailed(ServiceController<?> controller) {
-        synchronized (lock) {
-            failed.remove(controller);
-        }
+        failed.remove(controller);
     }
 
     void incrementUnstableServices() {
-        synchronized (lock) {
-            unstableServices++;
-        }
+        unstableServicesUpdater.incrementAndGet(this);
     }
 
     void addProblem(ServiceController<?> controller) {
-        synchronized (lock) {
-            problems.add(controller);
-        }
+        problems.add(controller);
     }
 
     void addFailed(ServiceController<?> controller) {
-        synchronized (lock) {
-            failed.add(controller);
-        }
+        failed.add(controller);
+    }
+
+    void recordTransition(final Transition transition, final long duration) {
+        transitionHistograms.record(transition, duration);
     }
 
     void decrementUnstableServices() {
-        synchronized (lock) {
-            if (--unstableServices == 0) {
-                lock.notifyAll();
+        final int unstableServices = unstableServicesUpdater.decrementAndGet(this);
+        assert unstableServices >= 0;
+        // waiters register themselves before checking the count, so either they see zero or we see them
+        if (unstableServices == 0 && stabilityWaiters != 0) {
+            final Map<CompletableFuture<Void>, Void> futures;
+            lock.lock();
+            try {
+                stable.signalAll();
+                // woken threads check the count again, futures are only completed if it is still zero
+                if (stabilityFutures.isEmpty() || this.unstableServices != 0) return;
+                futures = new IdentityHashMap<>();
+                for (CompletableFuture<Void> future : stabilityFutures) {
+                    futures.put(future, null);
+                }
+                stabilityFutures.clear();
+                stabilityWaitersUpdater.addAndGet(this, -futures.size());
+            } finally {
+                lock.unlock();
+            }
+            // the caller holds a controller lock
+            new StabilityNotification<>(futures).execute(executor);
+        }
+    }
+
+    @Override
+    public CompletionStage<Void> stability() {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        if (unstableServices != 0) {
+            stabilityWaitersUpdater.incrementAndGet(this);
+            lock.lock();
+            try {
+                if (unstableServices != 0) {
+                    // stays registered as a waiter until completed
+                    stabilityFutures.add(future);
+                    return future.minimalCompletionStage();
+                }
+            } finally {
+                lock.unlock();
             }
-            assert unstableServices >= 0; 
+            stabilityWaitersUpdater.decrementAndGet(this);
         }
+        future.complete(null);
+        return future.minimalCompletionStage();
+    }
+
+    @Override
+    public boolean isStable() {
+        return unstableServices == 0;
     }
 
     public String getName() {
         return name;
     }
 
+    @Override
+    public List<ServiceTiming> getSlowestStarts(final int count) {
+        return getSlowest(registry.values(), count, true);
+    }
+
+    @Override
+    public List<ServiceTiming> getSlowestStops(final int count) {
+        return getSlowest(registry.values(), count, false);
+    }
+
+    @Override
+    public StartProfile getStartProfile() {
+        return getStartProfile(registry.values());
+    }
+
+    /**
+     * Get the start profile of the services registered in the given registrations.
+     *
+     * @param registrations the registrations
+     * @return the start profile
+     */
+    static StartProfile getStartProfile(final Collection<ServiceRegistrationImpl> registrations) {
+        final Set<ServiceControllerImpl<?>> started = new IdentityHashSet<>();
+        ServiceControllerImpl<?> controller;
+        for (ServiceRegistrationImpl registration : registrations) {
+            controller = registration.getDependencyController();
+            if (controller != null && controller.getLastStartDuration() >= 0) started.add(controller);
+        }
+        if (started.isEmpty()) {
+            return new StartProfile(Collections.emptyList(), 0L, new long[0], new int[0]);
+        }
+        // each start is an event raising the number of starting services, each end an event lowering it
+        final long[] events = new long[started.size() * 2];
+        int i = 0;
+        long begin, end;
+        ServiceControllerImpl<?> last = null;
+        long lastEnd = Long.MIN_VALUE;
+        for (ServiceControllerImpl<?> c : started) {
+            begin = c.getLastStartTime();
+            end = begin + c.getLastStartDuration();
+            events[i++] = begin;
+            events[i++] = end;
+            if (last == null || end - lastEnd > 0) {
+                last = c;
+                lastEnd = end;
+            }
+        }
+        // sort by time, ends before begins at the same time; begins are encoded as odd numbers after the shift
+        final long origin = minimum(events);
+        for (i = 0; i < events.length; i++) {
+            events[i] = (events[i] - origin) << 1 | (i & 1 ^ 1);
+        }
+        Arrays.sort(events);
+        final long[] times = new long[events.length];
+        final int[] parallelism = new int[events.length];
+        int current = 0;
+        for (i = 0; i < events.length; i++) {
+            times[i] = events[i] >>> 1;
+            current += (events[i] & 1) == 1 ? 1 : -1;
+            parallelism[i] = current;
+        }
+        // walk back from the last start to end through the dependencies which ended last before each start
+        final ArrayList<ServiceTiming> criticalPath = new ArrayList<>();
+        final Set<ServiceControllerImpl<?>> visited = new IdentityHashSet<>();
+        ServiceControllerImpl<?> previous;
+        long previousEnd;
+        controller = last;
+        while (controller != null && visited.add(controller)) {
+            criticalPath.add(new ServiceTiming(controller, controller.getLastStartDuration()));
+            begin = controller.getLastStartTime();
+            previous = null;
+            previousEnd = Long.MIN_VALUE;
+            for (Dependency dependency : controller.getRequires()) {
+                end = endOfStartBefore(dependency.getDependencyController(), started, begin);
+                if (end != Long.MIN_VALUE && (previous == null || end - previousEnd > 0)) {
+                    previous = dependency.getDependencyController();
+                    previousEnd = end;
+                }
+            }
+            end = endOfStartBefore(controller.getParent(), started, begin);
+            if (end != Long.MIN_VALUE && (previous == null || end - previousEnd > 0)) {
+                previous = controller.getParent();
+            }
+            controller = previous;
+        }
+        Collections.reverse(criticalPath);
+        return new StartProfile(criticalPath, lastEnd - origin, times, parallelism);
+    }
+
+    private static long endOfStartBefore(final ServiceControllerImpl<?> controller, final Set<ServiceControllerImpl<?>> started, final long time) {
+        if (controller == null || !started.contains(controller)) return Long.MIN_VALUE;
+        final long end = controller.getLastStartTime() + controller.getLastStartDuration();
+        // a dependency which started again later did not hold this start back
+        return time - end >= 0 ? end : Long.MIN_VALUE;
+    }
+
+    private static long minimum(final long[] times) {
+        long min = times[0];
+        for (long time : times) {
+            if (time - min < 0) min = time;
+        }
+        return min;
+    }
+
+    /**
+     * Get the slowest starts or stops of the services registered in the given registrations, slowest first.
+     *
+     * @param registrations the registrations
+     * @param count the maximum number of services to return
+     * @param starts {@code true} for starts, {@code false} for stops
+     * @return the slowest starts or stops
+     */
+    static List<ServiceTiming> getSlowest(final Collection<ServiceRegistrationImpl> registrations, final int count, final boolean starts) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count is negative");
+        }
+        // the fastest of the slowest ones found so far is at the head
+        final Comparator<ServiceTiming> fastestFirst = Comparator.comparingLong(ServiceTiming::getTime);
+        final PriorityQueue<ServiceTiming> slowest = new PriorityQueue<>(fastestFirst);
+        final Set<ServiceControllerImpl<?>> visited = new IdentityHashSet<>();
+        ServiceControllerImpl<?> controller;
+        long time;
+        for (ServiceRegistrationImpl registration : registrations) {
+            controller = registration.getDependencyController();
+            // controllers providing several values are registered several times
+            if (controller == null || !visited.add(controller)) continue;
+            time = starts ? controller.getLastStartDuration() : controller.getLastStopDuration();
+            if (time < 0) continue;
+            if (slowest.size() < count) {
+                slowest.add(new ServiceTiming(controller, time));
+            } else if (count > 0 && slowest.peek().getTime() < time) {
+                slowest.poll();
+                slowest.add(new ServiceTiming(controller, time));
+            }
+        }
+        final List<ServiceTiming> retVal = new ArrayList<>(slowest);
+        retVal.sort(fastestFirst.reversed());
+        return retVal;
+    }
+
+    LifecycleTrace getLifecycleTrace() {
+        return lifecycleTrace;
+    }
+
     long getStart() {
         return start;
     }
@@ -280,39 +521,57 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
 
     @Override
     public void awaitStability(Set<? super ServiceController<?>> failed, Set<? super ServiceController<?>> problem) throws InterruptedException {
-        synchronized (lock) {
-            while (unstableServices != 0) {
-                lock.wait();
-            }
-            if (failed != null) {
-                failed.addAll(this.failed);
-            }
-            if (problem != null) {
-                problem.addAll(this.problems);
+        if (unstableServices != 0) {
+            final Object event = JDKSpecific.beginStabilityEvent();
+            stabilityWaitersUpdater.incrementAndGet(this);
+            lock.lock();
+            try {
+                while (unstableServices != 0) {
+                    stable.await();
+                }
+            } finally {
+                lock.unlock();
+                stabilityWaitersUpdater.decrementAndGet(this);
+                if (event != null) JDKSpecific.commitStabilityEvent(event, this, unstableServices == 0);
             }
         }
+        if (failed != null) {
+            failed.addAll(this.failed);
+        }
+        if (problem != null) {
+            problem.addAll(this.problems);
+        }
     }
 
     @Override
     public boolean awaitStability(final long timeout, final TimeUnit unit, Set<? super ServiceController<?>> failed, Set<? super ServiceController<?>> problem) throws InterruptedException {
         long now = System.nanoTime();
         long remaining = unit.toNanos(timeout);
-        synchronized (lock) {
-            while (unstableServices != 0) {
-                if (remaining <= 0L) {
-                    return false;
+        if (unstableServices != 0) {
+            final Object event = JDKSpecific.beginStabilityEvent();
+            stabilityWaitersUpdater.incrementAndGet(this);
+            lock.lock();
+            try {
+                while (unstableServices != 0) {
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    stable.awaitNanos(remaining);
+                    remaining -= (-now + (now = System.nanoTime()));
                 }
-                lock.wait(remaining / 1000000L, (int) (remaining % 1000000L));
-                remaining -= (-now + (now = System.nanoTime()));
-            }
-            if (failed != null) {
-                failed.addAll(this.failed);
+            } finally {
+                lock.unlock();
+                stabilityWaitersUpdater.decrementAndGet(this);
+                if (event != null) JDKSpecific.commitStabilityEvent(event, this, unstableServices == 0);
             }
-            if (problem != null) {
-                problem.addAll(this.problems);
-            }
-            return true;
         }
+        if (failed != null) {
+            failed.addAll(this.failed);
+        }
+        if (problem != null) {
+            problem.addAll(this.problems);
+        }
+        return true;
     }
 
     public boolean isShutdown() {
@@ -325,6 +584,7 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
             down = true;
             shutdownInitiated = System.nanoTime();
         }
+        awaitInstallations();
         // unregistering shutdown hook
         if (shutdownThread != null) {
             try {
@@ -402,6 +662,16 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
         return executor;
     }
 
+    /**
+     * Returns the executor for service start and stop tasks and for the tasks services submit to their lifecycle
+     * context. Unless virtual threads were enabled, these tasks share the executor of all other container tasks.
+     *
+     * @return the lifecycle executor
+     */
+    Executor getLifecycleExecutor() {
+        return lifecycleExecutor;
+    }
+
     /**
      * Atomically get or create a registration.
      *
@@ -421,13 +691,11 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
                     registration = existing;
                 }
             }
-            synchronized (registration) {
-                registration.acquireWrite();
-                try {
-                    success = registration.addPendingInstallation();
-                } finally {
-                    registration.releaseWrite();
-                }
+            registration.acquireWrite();
+            try {
+                success = registration.addPendingInstallation();
+            } finally {
+                registration.releaseWrite();
             }
         } while (!success);
         return registration;
@@ -463,10 +731,143 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
         return result;
     }
 
+    @Override
+    ServiceContainerImpl getContainer() {
+        return this;
+    }
+
     @Override
     <T> ServiceController<T> install(final ServiceBuilderImpl<T> serviceBuilder) throws DuplicateServiceException {
         apply(serviceBuilder);
+        final ServiceControllerImpl<T> instance = newController(serviceBuilder);
+        boolean ok = false;
+        try {
+            final int stripe = enterInstallation();
+            try {
+                if (down) {
+                    ok = true; // do not rollback installation because we didn't install anything
+                    throw new IllegalStateException ("Container is down");
+                }
+                // It is necessary to call startInstallation() while the installation is registered.
+                // This is the only point in MSC code where ServiceRegistrationImpl.instance
+                // field is being set to non null value. So in order for shutdown() method
+                // which iterates 'registry' concurrent hash map after waiting for registered installations
+                // to see up to date installed controllers this handshake is necessary.
+                // Otherwise it may happen container stability will be seriously broken on shutdown.
+                instance.startInstallation();
+            } finally {
+                exitInstallation(stripe);
+            }
+            instance.startConfiguration();
+            // detect circularity before committing
+            detectCircularity(instance);
+            instance.commitInstallation(serviceBuilder.getInitialMode());
+            ok = true;
+            return instance;
+        } finally {
+            if (! ok) {
+                instance.rollbackInstallation();
+            }
+        }
+    }
 
+    /**
+     * Installs {@code serviceBuilders} together. Either all of them are installed or none.
+     * Listeners and dependencies of their targets must have been applied already.
+     *
+     * @param serviceBuilders the builders to install
+     * @return the installed controllers
+     * @throws ServiceRegistryException if one of the services cannot be installed
+     */
+    List<ServiceController<?>> install(final List<ServiceBuilderImpl<?>> serviceBuilders) throws ServiceRegistryException {
+        final List<ServiceControllerImpl<?>> instances = new ArrayList<>(serviceBuilders.size());
+        for (ServiceBuilderImpl<?> serviceBuilder : serviceBuilders) {
+            instances.add(newController(serviceBuilder));
+        }
+        final List<ServiceControllerImpl<?>> started = new ArrayList<>(instances.size());
+        DuplicateServiceException duplicate = null;
+        final int stripe = enterInstallation();
+        try {
+            if (down) {
+                throw new IllegalStateException ("Container is down");
+            }
+            // see install(ServiceBuilderImpl) why this is done while the installation is registered
+            for (ServiceControllerImpl<?> instance : instances) {
+                try {
+                    instance.startInstallation();
+                    started.add(instance);
+                } catch (DuplicateServiceException e) {
+                    if (duplicate == null) duplicate = e;
+                }
+            }
+        } finally {
+            exitInstallation(stripe);
+        }
+        // the instances before this index are committed, a concurrent shutdown takes care of them
+        int committed = 0;
+        try {
+            for (ServiceControllerImpl<?> instance : started) {
+                instance.startConfiguration();
+            }
+            if (duplicate != null) throw duplicate;
+            // detect circularity before committing
+            detectCircularity(instances);
+            for (; committed < instances.size(); committed++) {
+                instances.get(committed).commitInstallation(serviceBuilders.get(committed).getInitialMode());
+            }
+            return new ArrayList<>(instances);
+        } finally {
+            for (int i = committed; i < instances.size(); i++) {
+                instances.get(i).rollbackInstallation();
+            }
+        }
+    }
+
+    /**
+     * Registers an installation in progress. The caller must check {@link #down} afterwards.
+     *
+     * @return the stripe to pass to {@link #exitInstallation(int)}
+     */
+    int enterInstallation() {
+        final long id = Thread.currentThread().getId();
+        final int stripe = (int) (id ^ id >>> 32) & INSTALLATION_STRIPES - 1;
+        installations.incrementAndGet(stripe * INSTALLATION_STRIPE_PADDING);
+        return stripe;
+    }
+
+    void exitInstallation(final int stripe) {
+        if (installations.decrementAndGet(stripe * INSTALLATION_STRIPE_PADDING) == 0 && down) {
+            synchronized (installationsLock) {
+                installationsLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for the installations which did not see the container going down.
+     */
+    private void awaitInstallations() {
+        boolean interrupted = false;
+        try {
+            synchronized (installationsLock) {
+                for (int i = 0; i < installations.length(); i += INSTALLATION_STRIPE_PADDING) {
+                    while (installations.get(i) != 0) {
+                        try {
+                            installationsLock.wait();
+                        } catch (final InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private <T> ServiceControllerImpl<T> newController(final ServiceBuilderImpl<T> serviceBuilder) {
         // Initialize registrations and injectors map
         final Map<ServiceRegistrationImpl, WritableValueImpl> provides = new LinkedHashMap<>();
         Entry<ServiceName, WritableValueImpl> entry;
@@ -496,35 +897,9 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
         }
 
         // Next create the actual controller
-        final ServiceControllerImpl<T> instance = new ServiceControllerImpl<>(this, serviceBuilder.serviceId, aliases, serviceBuilder.getService(),
+        return new ServiceControllerImpl<>(this, serviceBuilder.serviceId, aliases, serviceBuilder.getService(),
                 requires, provides, valueInjectionArray,
                 serviceBuilder.getMonitors(), serviceBuilder.getLifecycleListeners(), serviceBuilder.parent);
-        boolean ok = false;
-        try {
-            synchronized (this) {
-                if (down) {
-                    ok = true; // do not rollback installation because we didn't install anything
-                    throw new IllegalStateException ("Container is down");
-                }
-                // It is necessary to call startInstallation() under container intrinsic lock.
-                // This is the only point in MSC code where ServiceRegistrationImpl.instance
-                // field is being set to non null value. So in order for shutdown() method
-                // which iterates 'registry' concurrent hash map outside of intrinsic lock
-                // to see up to date installed controllers this synchronized section is necessary.
-                // Otherwise it may happen container stability will be seriously broken on shutdown.
-                instance.startInstallation();
-            }
-            instance.startConfiguration();
-            // detect circularity before committing
-            detectCircularity(instance);
-            instance.commitInstallation(serviceBuilder.getInitialMode());
-            ok = true;
-            return instance;
-        } finally {
-            if (! ok) {
-                instance.rollbackInstallation();
-            }
-        }
     }
 
     /**
@@ -538,17 +913,56 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
             // aggregation services cannot introduce a dependency cycle
             return;
         }
+        while (!dependencyOrder.add(instance)) {
+            // a cycle was found, walk the dependents to report it
+            reportCircularity(instance);
+            // the cycle was broken by a concurrent removal meanwhile
+        }
+    }
+
+    /**
+     * Detects if installation of {@code instances} results in dependency cycles.
+     *
+     * @param instances                    the services being installed together
+     * @throws CircularDependencyException if a dependency cycle involving one of {@code instances} is detected
+     */
+    private void detectCircularity(final List<ServiceControllerImpl<?>> instances) throws CircularDependencyException {
+        final List<ServiceControllerImpl<?>> ordered = new ArrayList<>(instances.size());
+        for (ServiceControllerImpl<?> instance : instances) {
+            // aggregation services cannot introduce a dependency cycle
+            if (!isAggregationService(instance)) ordered.add(instance);
+        }
+        int cycle = 0;
+        while ((cycle = dependencyOrder.addAll(ordered, cycle)) >= 0) {
+            reportCircularity(ordered.get(cycle));
+        }
+    }
+
+    void removeFromDependencyOrder(final ServiceControllerImpl<?> controller) {
+        dependencyOrder.remove(controller);
+    }
+
+    /**
+     * Finds the dependency cycle involving {@code instance} by walking its dependents.
+     *
+     * @param instance                     the service being installed
+     * @throws CircularDependencyException if a dependency cycle involving {@code instance} is detected
+     */
+    private <T> void reportCircularity(ServiceControllerImpl<T> instance) throws CircularDependencyException {
         final Set<ServiceControllerImpl<?>> visited = new IdentityHashSet<>();
         final Deque<ServiceControllerImpl> visitStack = new ArrayDeque<>();
         visitStack.push(instance);
         for (ServiceRegistrationImpl registration : instance.getRegistrations()) {
-            synchronized (registration) {
-                detectCircularity(registration.getDependents(), instance, visited, visitStack);
+            registration.lock();
+            try {
+                reportCircularity(registration.getDependents(), instance, visited, visitStack);
+            } finally {
+                registration.unlock();
             }
         }
     }
 
-    private void detectCircularity(Set<? extends Dependent> dependents, ServiceControllerImpl<?> instance, Set<ServiceControllerImpl<?>> visited,  Deque<ServiceControllerImpl> visitStack) {
+    private void reportCircularity(Set<? extends Dependent> dependents, ServiceControllerImpl<?> instance, Set<ServiceControllerImpl<?>> visited,  Deque<ServiceControllerImpl> visitStack) {
         for (Dependent dependent: dependents) {
             final ServiceControllerImpl<?> controller = dependent.getDependentController();
             if (controller == instance) {
@@ -563,13 +977,19 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
             if (visited.add(controller)) {
                 if (isRemovedService(controller) || isAggregationService(controller)) continue;
                 visitStack.push(controller);
-                synchronized(controller) {
-                    detectCircularity(controller.getChildren(), instance, visited, visitStack);
+                controller.lock();
+                try {
+                    reportCircularity(controller.getChildren(), instance, visited, visitStack);
+                } finally {
+                    controller.unlock();
                 }
                 for (ServiceRegistrationImpl registration : controller.getRegistrations()) {
                     if (registration.getDependencyController() == null) continue; // concurrent removal
-                    synchronized (registration) {
-                        detectCircularity(registration.getDependents(), instance, visited, visitStack);
+                    registration.lock();
+                    try {
+                        reportCircularity(registration.getDependents(), instance, visited, visitStack);
+                    } finally {
+                        registration.unlock();
                     }
                 }
                 visitStack.poll();
@@ -591,7 +1011,18 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
             ServiceLogger.ROOT.uncaughtException(e, t);
         }
     };
-    private static final ThreadPoolExecutor.CallerRunsPolicy POLICY = new ThreadPoolExecutor.CallerRunsPolicy();
+    /**
+     * Like {@link ThreadPoolExecutor.CallerRunsPolicy}, but rejects tasks submitted once the pool is shut down
+     * instead of discarding them, so that the submitters run them.
+     */
+    static final RejectedExecutionHandler POLICY = new RejectedExecutionHandler() {
+        public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException();
+            }
+            r.run();
+        }
+    };
 
     static class ServiceThread extends Thread {
         private final ServiceContainerImpl container;
@@ -628,11 +1059,28 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
     }
 
 
-    final class ContainerExecutor implements ExecutorService {
+    final class ContainerExecutor implements Executor {
 
-        private final ExecutorService delegate;
+        private static final int SHUTDOWN = 1 << 30;
+        private static final int TERMINATED = 1 << 29;
 
-        ContainerExecutor(final int corePoolSize, final int maximumPoolSize, final long keepAliveTime, final TimeUnit unit) {
+        private final Executor delegate;
+        /**
+         * The number of running tasks plus the {@code SHUTDOWN} and {@code TERMINATED} flags,
+         * tracked for externally supplied executors only.
+         */
+        private final AtomicInteger state;
+        /**
+         * The tasks waiting for a thread, or {@code null} if they are handed to the delegate in FIFO order.
+         */
+        private final TaskQueue queue;
+        private final Runnable runNext = new Runnable() {
+            public void run() {
+                queue.runNext();
+            }
+        };
+
+        ContainerExecutor(final int corePoolSize, final int maximumPoolSize, final long keepAliveTime, final TimeUnit unit, final TaskSchedulingPolicy policy) {
             final ThreadFactory threadFactory = new ThreadFactory() {
                 private final int id = executorSeq.getAndIncrement();
                 private final AtomicInteger threadSeq = new AtomicInteger(1);
@@ -667,58 +1115,112 @@ final class ServiceContainerImpl extends ServiceTargetImpl implements ServiceCon
                     .setThreadFactory(threadFactory)
                     .build();
             }
+            state = null;
+            queue = policy == TaskSchedulingPolicy.FIFO ? null : new TaskQueue(policy);
         }
 
-        public void shutdown() {
-            delegate.shutdown();
-        }
-
-        public List<Runnable> shutdownNow() {
-            return delegate.shutdownNow();
-        }
-
-        public boolean isShutdown() {
-            return delegate.isShutdown();
+        /**
+         * Creates a container executor running tasks on an executor supplied by the user.
+         * Such executor is never shut down by the container, instead the container terminates once
+         * all of its tasks submitted to it completed after {@link #shutdown()} was requested.
+         *
+         * @param delegate the user supplied executor
+         * @param policy the order to run waiting tasks in
+         */
+        ContainerExecutor(final Executor delegate, final TaskSchedulingPolicy policy) {
+            this.delegate = delegate;
+            this.state = new AtomicInteger();
+            queue = policy == TaskSchedulingPolicy.FIFO ? null : new TaskQueue(policy);
         }
 
-        public boolean isTerminated() {
-            return delegate.isTerminated();
-        }
-
-        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
-            return delegate.awaitTermination(timeout, unit);
-        }
-
-        public <T> Future<T> submit(final Callable<T> task) {
-            return delegate.submit(task);
-        }
-
-        public <T> Future<T> submit(final Runnable task, final T result) {
-            return delegate.submit(task, result);
-        }
-
-        public Future<?> submit(final Runnable task) {
-            return delegate.submit(task);
-        }
-
-        public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks) throws InterruptedException {
-            return delegate.invokeAll(tasks);
-        }
-
-        public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit) throws InterruptedException {
-            return delegate.invokeAll(tasks, timeout, unit);
+        public void shutdown() {
+            if (state == null) {
+                ((ExecutorService) delegate).shutdown();
+                return;
+            }
+            int oldState;
+            do {
+                oldState = state.get();
+                if ((oldState & SHUTDOWN) != 0) return;
+            } while (!state.compareAndSet(oldState, oldState | SHUTDOWN));
+            if (oldState == 0 && state.compareAndSet(SHUTDOWN, SHUTDOWN | TERMINATED)) {
+                shutdownComplete(shutdownInitiated);
+            }
         }
 
-        public <T> T invokeAny(final Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
-            return delegate.invokeAny(tasks);
+        public void execute(final Runnable task) {
+            final Runnable command = JDKSpecific.recordQueueing(task);
+            if (state == null) {
+                if (queue == null) {
+                    delegate.execute(command);
+                } else {
+                    executeNext(runNext, command, ServiceControllerImpl.getTaskKind(task));
+                }
+                return;
+            }
+            int oldState;
+            do {
+                oldState = state.get();
+                if ((oldState & TERMINATED) != 0) throw new RejectedExecutionException();
+            } while (!state.compareAndSet(oldState, oldState + 1));
+            if (queue != null) {
+                boolean submitted = false;
+                try {
+                    submitted = executeNext(new Runnable() {
+                        public void run() {
+                            try {
+                                queue.runNext();
+                            } finally {
+                                taskFinished();
+                            }
+                        }
+                    }, command, ServiceControllerImpl.getTaskKind(task));
+                } finally {
+                    if (!submitted) taskFinished();
+                }
+                return;
+            }
+            try {
+                delegate.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            command.run();
+                        } finally {
+                            taskFinished();
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                taskFinished();
+                throw t;
+            }
         }
 
-        public <T> T invokeAny(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-            return delegate.invokeAny(tasks, timeout, unit);
+        /**
+         * Queue a command and submit a call to {@link TaskQueue#runNext()} for it. If the call is rejected,
+         * the command is taken back and the rejection passed on, as for commands which are not queued,
+         * unless a running call took the command already.
+         *
+         * @param next the call to submit
+         * @param command the command
+         * @param kind the kind of the command
+         * @return {@code true} if the call was submitted
+         */
+        private boolean executeNext(final Runnable next, final Runnable command, final int kind) {
+            queue.add(command, kind);
+            try {
+                delegate.execute(next);
+                return true;
+            } catch (RejectedExecutionException e) {
+                if (queue.remove(command, kind)) throw e;
+                return false;
+            }
         }
 
-        public void execute(final Runnable command) {
-            delegate.execute(command);
+        private void taskFinished() {
+            if (state.decrementAndGet() == SHUTDOWN && state.compareAndSet(SHUTDOWN, SHUTDOWN | TERMINATED)) {
+                shutdownComplete(shutdownInitiated);
+            }
         }
     }
 
@@ -24,13 +24,19 @@ package org.jboss.msc.service;
 
 import org.jboss.msc.service.management.ServiceContainerMXBean;
 import org.jboss.msc.service.management.ServiceStatus;
+import org.jboss.msc.service.management.ServiceTimingStatus;
+import org.jboss.msc.service.management.TransitionStatistics;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentMap;
@@ -46,10 +52,14 @@ final class ServiceContainerMXBeanImpl implements ServiceContainerMXBean {
 
     private final ConcurrentMap<ServiceName, ServiceRegistrationImpl> registry;
     private final String containerName;
+    private final TransitionHistograms transitionHistograms;
+    private final LifecycleTrace lifecycleTrace;
 
-    ServiceContainerMXBeanImpl(final String containerName, final ConcurrentMap<ServiceName, ServiceRegistrationImpl> registry) {
+    ServiceContainerMXBeanImpl(final String containerName, final ConcurrentMap<ServiceName, ServiceRegistrationImpl> registry, final TransitionHistograms transitionHistograms, final LifecycleTrace lifecycleTrace) {
         this.containerName = containerName;
         this.registry = registry;
+        this.transitionHistograms = transitionHistograms;
+        this.lifecycleTrace = lifecycleTrace;
     }
 
     @Override
@@ -312,6 +322,75 @@ final class ServiceContainerMXBeanImpl implements ServiceContainerMXBean {
         return baos.toString(UTF_8);
     }
 
+    @Override
+    public Set<TransitionStatistics> getTransitionStatistics() {
+        return transitionHistograms.getStatistics();
+    }
+
+    @Override
+    public void dumpTransitionStatistics() {
+        dumpTransitionStatistics(System.out);
+    }
+
+    @Override
+    public String dumpTransitionStatisticsToString() {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(baos, false, UTF_8);
+        dumpTransitionStatistics(out);
+        return baos.toString(UTF_8);
+    }
+
+    @Override
+    public List<ServiceTimingStatus> querySlowestStarts(final int count) {
+        return querySlowest(count, true);
+    }
+
+    @Override
+    public void dumpSlowestStarts(final int count) {
+        dumpSlowest("start", count, true, System.out);
+    }
+
+    @Override
+    public String dumpSlowestStartsToString(final int count) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(baos, false, UTF_8);
+        dumpSlowest("start", count, true, out);
+        return baos.toString(UTF_8);
+    }
+
+    @Override
+    public List<ServiceTimingStatus> querySlowestStops(final int count) {
+        return querySlowest(count, false);
+    }
+
+    @Override
+    public void dumpSlowestStops(final int count) {
+        dumpSlowest("stop", count, false, System.out);
+    }
+
+    @Override
+    public String dumpSlowestStopsToString(final int count) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(baos, false, UTF_8);
+        dumpSlowest("stop", count, false, out);
+        return baos.toString(UTF_8);
+    }
+
+    @Override
+    public String dumpLifecycleTraceToString() {
+        if (lifecycleTrace == null) {
+            throw new IllegalStateException("Lifecycle trace recording is not enabled");
+        }
+        final StringWriter out = new StringWriter();
+        try {
+            lifecycleTrace.write(containerName, out);
+        } catch (IOException e) {
+            // not thrown by a StringWriter
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
     void dumpServices(final String conditionDescription, final Function<ServiceStatus, ServiceStatus> function, final String value, final PrintStream out) {
         final Collection<ServiceStatus> services = queryServices(function);
         synchronized (out) {
@@ -345,6 +424,34 @@ final class ServiceContainerMXBeanImpl implements ServiceContainerMXBean {
         }
     }
 
+    private void dumpTransitionStatistics(final PrintStream out) {
+        final Collection<TransitionStatistics> transitions = getTransitionStatistics();
+        synchronized (out) {
+            out.printf("Number of transition kinds recorded in container \"%s\" is: %d", containerName, transitions.size());
+            out.print(DOUBLE_LS);
+            for (TransitionStatistics transition : transitions) {
+                out.print(transition);
+                out.print(LS);
+            }
+            out.print(LS);
+            out.flush();
+        }
+    }
+
+    private void dumpSlowest(final String lifecycleDescription, final int count, final boolean starts, final PrintStream out) {
+        final Collection<ServiceTimingStatus> services = querySlowest(count, starts);
+        synchronized (out) {
+            out.printf("Slowest %d services to %s in container \"%s\":", services.size(), lifecycleDescription, containerName);
+            out.print(DOUBLE_LS);
+            for (ServiceTimingStatus service : services) {
+                out.print(service);
+                out.print(LS);
+            }
+            out.print(LS);
+            out.flush();
+        }
+    }
+
     private void dumpServiceIds(final String conditionDescription, final Function<ServiceStatus, String> function, final String value, final PrintStream out) {
         final Collection<String> serviceIds = queryServiceIds(function);
         synchronized (out) {
@@ -378,6 +485,17 @@ final class ServiceContainerMXBeanImpl implements ServiceContainerMXBean {
         return retVal;
     }
 
+    private List<ServiceTimingStatus> querySlowest(final int count, final boolean starts) {
+        final List<ServiceTiming> timings = ServiceContainerImpl.getSlowest(registry.values(), count, starts);
+        final List<ServiceTimingStatus> retVal = new ArrayList<>(timings.size());
+        ServiceStatus service;
+        for (ServiceTiming timing : timings) {
+            service = ((ServiceControllerImpl<?>) timing.getController()).getStatus();
+            retVal.add(new ServiceTimingStatus(service.getId(), service.getProvidedValues(), timing.getTime()));
+        }
+        return retVal;
+    }
+
     private Set<String> queryServiceIds(final Function<ServiceStatus, String> function) {
         final Collection<ServiceRegistrationImpl> values = registry.values();
         final Set<String> retVal = new TreeSet<>();
@@ -24,6 +24,7 @@ package org.jboss.msc.service;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.jboss.msc.value.Value;
@@ -121,6 +122,15 @@ public interface ServiceController<S> extends Value<S> {
     @Deprecated
     S awaitValue(long time, TimeUnit unit) throws IllegalStateException, InterruptedException, TimeoutException;
 
+    /**
+     * Get a stage which completes with the service value once the service comes up, without blocking a thread.
+     * The stage completes exceptionally with an {@link IllegalStateException} if the service fails to start or is removed.
+     *
+     * @return the stage of the service value
+     * @throws UnsupportedOperationException if the service was not installed with a {@link Service} providing its value
+     */
+    CompletionStage<S> valueFuture();
+
     /**
      * Get the service.
      *
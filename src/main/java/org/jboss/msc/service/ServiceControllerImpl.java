@@ -22,10 +22,10 @@
 
 package org.jboss.msc.service;
 
-import static java.lang.Thread.holdsLock;
 import static org.jboss.msc.service.SecurityUtils.getCL;
 import static org.jboss.msc.service.SecurityUtils.setTCCL;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,11 +34,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.jboss.msc.service.management.ServiceStatus;
 
@@ -61,7 +67,35 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     private static final int DEPENDENCY_STOPPED_TASK = 1 << 3;
     private static final int DEPENDENCY_FAILED_TASK = 1 << 4;
     private static final int DEPENDENCY_RETRYING_TASK = 1 << 5;
+    /**
+     * Dependents notified by a single thread. Registrations with more dependents than this have their dependents
+     * notified in chunks of this size, processed in parallel on the container executor.
+     */
+    private static final int DEPENDENTS_CHUNK_SIZE = 256;
+    /**
+     * Controller tasks queued by a thread for running inline, once the controller task it is running has completed,
+     * instead of handing them off to the executor. Past this many queued tasks, further tasks go to the executor.
+     */
+    private static final int MAX_DEFERRED_TASKS = 64;
+    /**
+     * The number of queued controller tasks a thread runs inline after a controller task it took from an executor;
+     * the remaining ones are handed off to the executor so that a single thread does not serve a whole cascade.
+     */
+    private static final int MAX_INLINE_TASKS = 256;
+    /**
+     * The controller tasks queued by the current thread, see {@link #doExecute(List)}.
+     */
+    private static final ThreadLocal<DeferredTasks> deferredTasks = ThreadLocal.withInitial(DeferredTasks::new);
 
+    /**
+     * The lock guarding the mutable state of this controller.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled whenever a transition brought this controller {@link State#UP UP}, {@link State#START_FAILED START_FAILED}
+     * or {@link State#REMOVED REMOVED}, the only states {@link #awaitValue()} waits for.
+     */
+    private final Condition stateChange = lock.newCondition();
     /**
      * The service container.
      */
@@ -118,52 +152,65 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      */
     private StartException startException;
     /**
-     * The controller mode.
-     */
-    private ServiceController.Mode mode = ServiceController.Mode.NEVER;
-    /**
-     * The controller state.
+     * The controller mode. Written under the lock, volatile so that {@link #getMode()} need not take it.
      */
-    private Substate state = Substate.NEW;
+    private volatile ServiceController.Mode mode = ServiceController.Mode.NEVER;
     /**
-     * Tracks which dependent tasks have completed its execution.
-     * First 16 bits track if dependent task have been scheduled.
-     * Second 16 bits track whether scheduled dependent task finished its execution.
+     * The controller state. Written under the lock, volatile so that {@link #getState()} need not take it.
      */
-    private int execFlags;
+    private volatile Substate state = Substate.NEW;
     /**
-     * The number of registrations which place a demand-to-start on this
-     * instance. If this value is >0, propagate a demand up to all parent
-     * dependents. If this value is >0 and mode is ON_DEMAND, we should start.
+     * The label of this service in the container's {@link DependencyOrder}, or {@link DependencyOrder#UNLABELED}.
+     * Only accessed by the dependency order.
      */
-    private int demandedByCount;
-    /**
-     * Count for dependencies that are trying to stop.  If this count is greater than zero then
-     * dependents will be notified that a stop is necessary.
-     */
-    private int stoppingDependencies;
+    @SuppressWarnings("VolatileLongOrDoubleField")
+    volatile long orderLabel = DependencyOrder.UNLABELED;
     /**
-     * Count of unavailable dependencies of this service.
+     * Snapshot of {@link #isUnavailable()}, refreshed under the lock whenever the state or the execution flags
+     * it depends on change. Read without the lock by the dependents' {@link #getUnavailableDependencies()}.
      */
-    private int unavailableDependencies;
+    private volatile boolean unavailable = true;
     /**
-     * The number of dependents that are currently running. The deployment will
-     * not execute the {@code stop()} method (and subsequently leave the
-     * {@link org.jboss.msc.service.ServiceController.State#STOPPING} state)
-     * until all running dependents (and listeners) are stopped.
+     * Tracks which dependent tasks have completed its execution.
+     * First 16 bits track if dependent task have been scheduled.
+     * Second 16 bits track whether scheduled dependent task finished its execution.
      */
-    private int runningDependents;
+    private int execFlags;
     /**
-     * Count for failure notification. It indicates how many services have
+     * The counters of notifications received from dependencies, packed into a single word:
+     * <ul>
+     * <li>bits 0-15: count of unavailable dependencies of this service.</li>
+     * <li>bits 16-31: count for dependencies that are trying to stop.  If this count is greater than zero then
+     * dependents will be notified that a stop is necessary.</li>
+     * <li>bits 32-47: count for failure notification. It indicates how many services have
      * failed to start and are not recovered so far. This count monitors
      * failures that happen when starting this service, and dependency related
      * failures as well. When incremented from 0 to 1, it is time to notify
      * dependents and listeners that a failure occurred. When decremented from 1
      * to 0, the dependents and listeners are notified that the affected
      * services are retrying to start. Values larger than 1 are ignored to avoid
-     * multiple notifications.
+     * multiple notifications.</li>
+     * </ul>
+     * Transitions only depend on whether a counter is zero or not, so a counter may be updated without holding
+     * the lock as long as it neither leaves nor reaches zero. Changes from and to zero are done under the lock.
+     */
+    @SuppressWarnings("unused")
+    private volatile long dependencyCounters;
+    /**
+     * The counters of notifications received from dependents, packed into a single word:
+     * <ul>
+     * <li>bits 0-31: the number of registrations which place a demand-to-start on this
+     * instance. If this value is >0, propagate a demand up to all parent
+     * dependents. If this value is >0 and mode is ON_DEMAND, we should start.</li>
+     * <li>bits 32-63: the number of dependents that are currently running. The deployment will
+     * not execute the {@code stop()} method (and subsequently leave the
+     * {@link org.jboss.msc.service.ServiceController.State#STOPPING} state)
+     * until all running dependents (and listeners) are stopped.</li>
+     * </ul>
+     * The same update rules apply as for {@link #dependencyCounters}.
      */
-    private int failCount;
+    @SuppressWarnings("unused")
+    private volatile long dependentCounters;
     /**
      * Indicates whether dependencies have been demanded.
      */
@@ -178,6 +225,30 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * Tasks executed last on transition outside the lock.
      */
     private final List<Runnable> listenerTransitionTasks = new ArrayList<>();
+    /**
+     * The futures returned by {@link #valueFuture()} while this service was neither up, failed nor removed,
+     * or {@code null} if there are none.
+     */
+    private List<CompletableFuture<S>> valueFutures;
+    /**
+     * The tasks returned by {@link #transition()}. A transition only happens once every task of the previous one
+     * has completed, so the list and the task objects below are reused by every transition instead of allocated.
+     */
+    private final List<Runnable> transitionTasks = new ArrayList<>(4);
+    private final DemandDependenciesTask demandDependenciesTask = new DemandDependenciesTask();
+    private final UndemandDependenciesTask undemandDependenciesTask = new UndemandDependenciesTask();
+    private final DependentStartedTask dependentStartedTask = new DependentStartedTask();
+    private final DependentStoppedTask dependentStoppedTask = new DependentStoppedTask();
+    private final DependencyAvailableTask dependencyAvailableTask = new DependencyAvailableTask();
+    private final DependencyUnavailableTask dependencyUnavailableTask = new DependencyUnavailableTask();
+    private final DependencyStartedTask dependencyStartedTask = new DependencyStartedTask();
+    private final DependencyStoppedTask dependencyStoppedTask = new DependencyStoppedTask();
+    private final DependencyFailedTask dependencyFailedTask = new DependencyFailedTask();
+    private final DependencyRetryingTask dependencyRetryingTask = new DependencyRetryingTask();
+    private final StartTask startTask = new StartTask();
+    private final StopTask stopTask = new StopTask();
+    private final RemoveChildrenTask removeChildrenTask = new RemoveChildrenTask();
+    private final RemoveTask removeTask = new RemoveTask();
     /**
      * The service target for adding child services (can be {@code null} if none
      * were added).
@@ -189,9 +260,63 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      */
     @SuppressWarnings("VolatileLongOrDoubleField")
     private volatile long lifecycleTime;
+    /**
+     * The system nanotime of the moment in which the current substate was entered.
+     */
+    private long stateTime = System.nanoTime();
+    /**
+     * The time this service spent in {@link Substate#STARTING STARTING} the last time it started, in nanoseconds,
+     * or {@code -1} if it never started.
+     */
+    private volatile long lastStartDuration = -1;
+    /**
+     * The system nanotime of the moment in which this service entered {@link Substate#STARTING STARTING} the last
+     * time it started, only meaningful if {@link #lastStartDuration} is not negative.
+     */
+    private volatile long lastStartTime;
+    /**
+     * The time this service spent in {@link Substate#STOPPING STOPPING} the last time it stopped, in nanoseconds,
+     * or {@code -1} if it never stopped.
+     */
+    private volatile long lastStopDuration = -1;
+    /**
+     * The thread which last called the service start or stop, only recorded if the container has a
+     * {@link LifecycleTrace}. This and the following fields are written before the lifecycle context is closed
+     * under the lock, and read in the transition completing the start or the stop.
+     */
+    private Thread lifecycleThread;
+    /**
+     * The system nanotime of the moment in which the service was last called.
+     */
+    private long lifecycleCallTime;
+    /**
+     * The system nanotime of the moment in which the last service call returned.
+     */
+    private long lifecycleReturnTime;
+    /**
+     * Whether the last service call completed asynchronously.
+     */
+    private boolean lifecycleAsync;
+    /**
+     * The flight recorder event timing the current start or stop, if it is being recorded.
+     */
+    private Object flightRecorderEvent;
 
     static final int MAX_DEPENDENCIES = (1 << 14) - 1;
 
+    private static final int UNAVAILABLE_DEPENDENCIES_SHIFT = 0;
+    private static final int STOPPING_DEPENDENCIES_SHIFT = 16;
+    private static final int FAIL_COUNT_SHIFT = 32;
+    private static final long DEPENDENCY_COUNTER_MASK = 0xFFFFL;
+    private static final int DEMANDED_BY_COUNT_SHIFT = 0;
+    private static final int RUNNING_DEPENDENTS_SHIFT = 32;
+    private static final long DEPENDENT_COUNTER_MASK = 0xFFFFFFFFL;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<ServiceControllerImpl> dependencyCountersUpdater = AtomicLongFieldUpdater.newUpdater(ServiceControllerImpl.class, "dependencyCounters");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<ServiceControllerImpl> dependentCountersUpdater = AtomicLongFieldUpdater.newUpdater(ServiceControllerImpl.class, "dependentCounters");
+
     ServiceControllerImpl(final ServiceContainerImpl container, final ServiceName serviceId, final ServiceName[] serviceAliases, final org.jboss.msc.Service service, final Set<Dependency> requires, final Map<ServiceRegistrationImpl, WritableValueImpl> provides, final ValueInjection<?>[] injections, final Set<StabilityMonitor> monitors, final Set<LifecycleListener> lifecycleListeners, final ServiceControllerImpl<?> parent) {
         assert requires.size() <= MAX_DEPENDENCIES;
         this.container = container;
@@ -210,13 +335,87 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         // and later to remove them when inherited stability monitor is cleared.
         for (final StabilityMonitor monitor : monitors) {
             monitor.addControllerNoCallback(this);
+            monitor.addStatistics(mode, false);
         }
         this.parent = parent;
         int depCount = requires.size();
-        stoppingDependencies = parent == null ? depCount : depCount + 1;
+        dependencyCounters = (long) (parent == null ? depCount : depCount + 1) << STOPPING_DEPENDENCIES_SHIFT;
         children = new IdentityHashSet<>();
     }
 
+    void lock() {
+        lock.lock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Returns {@code true} if the current thread holds the lock of this controller.
+     *
+     * @return {@code true} if locked by the current thread, {@code false} otherwise
+     */
+    boolean holdsLock() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    private int unavailableDependencies() {
+        return (int) (dependencyCounters >>> UNAVAILABLE_DEPENDENCIES_SHIFT & DEPENDENCY_COUNTER_MASK);
+    }
+
+    private int stoppingDependencies() {
+        return (int) (dependencyCounters >>> STOPPING_DEPENDENCIES_SHIFT & DEPENDENCY_COUNTER_MASK);
+    }
+
+    private int failCount() {
+        return (int) (dependencyCounters >>> FAIL_COUNT_SHIFT & DEPENDENCY_COUNTER_MASK);
+    }
+
+    private int demandedByCount() {
+        return (int) (dependentCounters >>> DEMANDED_BY_COUNT_SHIFT & DEPENDENT_COUNTER_MASK);
+    }
+
+    private int runningDependents() {
+        return (int) (dependentCounters >>> RUNNING_DEPENDENTS_SHIFT & DEPENDENT_COUNTER_MASK);
+    }
+
+    /**
+     * Adds {@code delta} to a packed counter without holding the lock, unless the counter would leave
+     * or reach zero.
+     *
+     * @return {@code true} if the counter was updated, {@code false} if it must be updated under the lock
+     */
+    @SuppressWarnings("rawtypes")
+    private boolean tryUpdateCounter(final AtomicLongFieldUpdater<ServiceControllerImpl> updater, final int shift, final long mask, final int delta) {
+        long oldWord;
+        long oldValue;
+        do {
+            oldWord = updater.get(this);
+            oldValue = oldWord >>> shift & mask;
+            if (oldValue == 0 || oldValue + delta <= 0 || oldValue + delta > mask) return false;
+        } while (!updater.compareAndSet(this, oldWord, oldWord + ((long) delta << shift)));
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} to a packed counter. Call under the lock.
+     *
+     * @return the new value of the counter
+     */
+    @SuppressWarnings("rawtypes")
+    private int updateCounter(final AtomicLongFieldUpdater<ServiceControllerImpl> updater, final int shift, final long mask, final int delta) {
+        assert holdsLock();
+        long oldWord;
+        long newValue;
+        do {
+            oldWord = updater.get(this);
+            newValue = (oldWord >>> shift & mask) + delta;
+            assert newValue >= 0 && newValue <= mask;
+        } while (!updater.compareAndSet(this, oldWord, oldWord + ((long) delta << shift)));
+        return (int) newValue;
+    }
+
     private static Set<ServiceName> unmodifiableSetOf(final Set<? extends Dependency> set) {
         if (set.isEmpty()) return Collections.EMPTY_SET;
         final Set<ServiceName> temp = new HashSet<>(set.size());
@@ -240,16 +439,14 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             registration = provided.getKey();
             injector = provided.getValue();
             lock = registration.getLock();
-            synchronized (lock) {
-                lock.acquireWrite();
-                try {
-                    registration.set(this, injector);
-                    if (injector != null) {
-                        injector.setInstance(this);
-                    }
-                } finally {
-                    lock.releaseWrite();
+            lock.acquireWrite();
+            try {
+                registration.set(this, injector);
+                if (injector != null) {
+                    injector.setInstance(this);
                 }
+            } finally {
+                lock.releaseWrite();
             }
         }
     }
@@ -264,13 +461,11 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         Lockable lock;
         for (Dependency dependency : requires) {
             lock = dependency.getLock();
-            synchronized (lock) {
-                lock.acquireWrite();
-                try {
-                    dependency.addDependent(this);
-                } finally {
-                    lock.releaseWrite();
-                }
+            lock.acquireWrite();
+            try {
+                dependency.addDependent(this);
+            } finally {
+                lock.releaseWrite();
             }
         }
         if (parent != null) parent.addChild(this);
@@ -284,10 +479,11 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     void commitInstallation(Mode initialMode) {
         assert (state == Substate.NEW);
         assert initialMode != null;
-        assert !holdsLock(this);
+        assert !holdsLock();
 
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             if (container.isShutdown()) {
                 throw new IllegalStateException ("Container is down");
             }
@@ -296,6 +492,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
@@ -304,14 +502,16 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * Roll back the service install.
      */
     void rollbackInstallation() {
-        final Runnable removeTask;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            mode = Mode.REMOVE;
+            updateMode(Mode.REMOVE);
             state = Substate.REMOVING;
-            removeTask = new RemoveTask();
+            unavailable = true;
             incrementAsyncTasks();
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         removeTask.run();
     }
@@ -322,7 +522,7 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return true if this service controller installation is committed
      */
     boolean isInstallationCommitted() {
-        assert holdsLock(this);
+        assert holdsLock();
         return state.compareTo(Substate.NEW) > 0;
     }
 
@@ -333,7 +533,7 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return true if notification must be ignored, false otherwise
      */
     private boolean ignoreNotification() {
-        assert holdsLock(this);
+        assert holdsLock();
         return state == Substate.NEW;
     }
 
@@ -343,8 +543,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return {@code true} if so
      */
     private boolean shouldStart() {
-        assert holdsLock(this);
-        return mode == Mode.ACTIVE || mode == Mode.PASSIVE && stoppingDependencies == 0 || demandedByCount > 0 && (mode == Mode.ON_DEMAND || mode == Mode.LAZY);
+        assert holdsLock();
+        return mode == Mode.ACTIVE || mode == Mode.PASSIVE && stoppingDependencies() == 0 || demandedByCount() > 0 && (mode == Mode.ON_DEMAND || mode == Mode.LAZY);
     }
 
     /**
@@ -353,8 +553,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return {@code true} if so
      */
     private boolean shouldStop() {
-        assert holdsLock(this);
-        return mode == Mode.REMOVE || mode == Mode.NEVER || demandedByCount == 0 && mode == Mode.ON_DEMAND;
+        assert holdsLock();
+        return mode == Mode.REMOVE || mode == Mode.NEVER || demandedByCount() == 0 && mode == Mode.ON_DEMAND;
     }
 
     /**
@@ -362,12 +562,12 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return true if stable rest state, false otherwise
      */
     private boolean isStableRestState() {
-        assert holdsLock(this);
+        assert holdsLock();
         return asyncTasks == 0 && state.isRestState();
     }
 
     private void updateStabilityState(final boolean leavingStableRestState) {
-        assert holdsLock(this);
+        assert holdsLock();
         final boolean enteringStableRestState = state.isRestState() && asyncTasks == 0;
         if (leavingStableRestState) {
             if (!enteringStableRestState) {
@@ -380,10 +580,11 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             if (enteringStableRestState) {
                 container.decrementUnstableServices();
                 for (StabilityMonitor monitor : monitors) {
-                    monitor.decrementUnstableServices();
+                    monitor.decrementUnstableServices(container.getExecutor());
                 }
                 if (state == Substate.REMOVED) {
                     for (StabilityMonitor monitor : monitors) {
+                        monitor.removeStatistics(mode, false);
                         monitor.removeControllerNoCallback(this);
                     }
                     if (shutdownListener != null) {
@@ -401,35 +602,33 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return the transition or {@code null} if none is needed at this time
      */
     private Transition getTransition() {
-        assert holdsLock(this);
+        assert holdsLock();
         switch (state) {
             case NEW: {
-                if (!container.isShutdown()) {
-                    return Transition.NEW_to_DOWN;
-                }
-                break;
+                // only reached from commitInstallation(), which checked the container under the lock
+                return Transition.NEW_to_DOWN;
             }
             case DOWN: {
                 if (mode == ServiceController.Mode.REMOVE) {
                     return Transition.DOWN_to_REMOVING;
                 } else if (shouldStart()) {
-                    if (unavailableDependencies > 0 || failCount > 0) {
+                    if (unavailableDependencies() > 0 || failCount() > 0) {
                         return Transition.DOWN_to_PROBLEM;
                     }
-                    if (stoppingDependencies == 0) {
+                    if (stoppingDependencies() == 0) {
                         return Transition.DOWN_to_START_REQUESTED;
                     }
                 }
                 break;
             }
             case PROBLEM: {
-                if (!shouldStart() || (unavailableDependencies == 0 && failCount == 0)) {
+                if (!shouldStart() || (unavailableDependencies() == 0 && failCount() == 0)) {
                     return Transition.PROBLEM_to_DOWN;
                 }
                 break;
             }
             case START_REQUESTED: {
-                if (shouldStart() && stoppingDependencies == 0) {
+                if (shouldStart() && stoppingDependencies() == 0) {
                     return Transition.START_REQUESTED_to_STARTING;
                 } else {
                     return Transition.START_REQUESTED_to_DOWN;
@@ -444,7 +643,7 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             }
             case START_FAILED: {
                 if (children.isEmpty()) {
-                    if (shouldStart() && stoppingDependencies == 0) {
+                    if (shouldStart() && stoppingDependencies() == 0) {
                         if (startException == null) {
                             return Transition.START_FAILED_to_STARTING;
                         }
@@ -455,15 +654,15 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 break;
             }
             case UP: {
-                if (shouldStop() || stoppingDependencies > 0) {
+                if (shouldStop() || stoppingDependencies() > 0) {
                     return Transition.UP_to_STOP_REQUESTED;
                 }
                 break;
             }
             case STOP_REQUESTED: {
-                if (shouldStart() && stoppingDependencies == 0) {
+                if (shouldStart() && stoppingDependencies() == 0) {
                     return Transition.STOP_REQUESTED_to_UP;
-                } else if (runningDependents == 0) {
+                } else if (runningDependents() == 0) {
                     return Transition.STOP_REQUESTED_to_STOPPING;
                 }
                 break;
@@ -486,8 +685,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     private boolean postTransitionTasks(final List<Runnable> tasks) {
-        assert holdsLock(this);
-        // Listener transition tasks are executed last for ongoing transition and outside of intrinsic lock
+        assert holdsLock();
+        // Listener transition tasks are executed last for ongoing transition and outside of controller lock
         if (listenerTransitionTasks.size() > 0) {
             tasks.addAll(listenerTransitionTasks);
             listenerTransitionTasks.clear();
@@ -502,12 +701,13 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
      * @return returns list of async tasks to execute
      */
     private List<Runnable> transition() {
-        assert holdsLock(this);
+        assert holdsLock();
         if (asyncTasks != 0) {
             // no movement possible
             return Collections.EMPTY_LIST;
         }
-        final List<Runnable> tasks = new ArrayList<>();
+        final List<Runnable> tasks = transitionTasks;
+        tasks.clear();
         if (postTransitionTasks(tasks)) {
             // no movement possible
             return tasks;
@@ -522,14 +722,14 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 case NEVER:
                 case REMOVE:
                     if (dependenciesDemanded) {
-                        tasks.add(new UndemandDependenciesTask());
+                        tasks.add(undemandDependenciesTask);
                         dependenciesDemanded = false;
                     }
                     break;
                 case LAZY: {
                     if (state == Substate.UP) {
                         if (!dependenciesDemanded) {
-                            tasks.add(new DemandDependenciesTask());
+                            tasks.add(demandDependenciesTask);
                             dependenciesDemanded = true;
                         }
                         break;
@@ -538,18 +738,18 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 }
                 case ON_DEMAND:
                 case PASSIVE: {
-                    if (demandedByCount > 0 && !dependenciesDemanded) {
-                        tasks.add(new DemandDependenciesTask());
+                    if (demandedByCount() > 0 && !dependenciesDemanded) {
+                        tasks.add(demandDependenciesTask);
                         dependenciesDemanded = true;
-                    } else if (demandedByCount == 0 && dependenciesDemanded) {
-                        tasks.add(new UndemandDependenciesTask());
+                    } else if (demandedByCount() == 0 && dependenciesDemanded) {
+                        tasks.add(undemandDependenciesTask);
                         dependenciesDemanded = false;
                     }
                     break;
                 }
                 case ACTIVE: {
                     if (!dependenciesDemanded) {
-                        tasks.add(new DemandDependenciesTask());
+                        tasks.add(demandDependenciesTask);
                         dependenciesDemanded = true;
                     }
                     break;
@@ -557,8 +757,14 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             }
             transition = getTransition();
             if (transition == null) {
-                return tasks;
-            }
+                // callers must not see the list unless it holds tasks keeping other transitions from reusing it
+                return tasks.isEmpty() ? Collections.emptyList() : tasks;
+            }
+            final long now = System.nanoTime();
+            final long duration = now - stateTime;
+            container.recordTransition(transition, duration);
+            JDKSpecific.recordTransition(this, transition, duration);
+            stateTime = now;
             switch (transition) {
                 case NEW_to_DOWN: {
                     getListenerTasks(LifecycleEvent.DOWN, listenerTransitionTasks);
@@ -580,65 +786,88 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 }
                 case DOWN_to_START_REQUESTED: {
                     lifecycleTime = System.nanoTime();
-                    tasks.add(new DependencyAvailableTask());
-                    tasks.add(new DependentStartedTask());
+                    tasks.add(dependencyAvailableTask.scheduled());
+                    tasks.add(dependentStartedTask);
                     break;
                 }
                 case START_REQUESTED_to_STARTING: {
-                    tasks.add(new StartTask());
+                    flightRecorderEvent = JDKSpecific.beginStartEvent();
+                    tasks.add(startTask);
                     break;
                 }
                 case STARTING_to_UP: {
+                    lastStartTime = now - duration;
+                    lastStartDuration = duration;
+                    traceLifecycle(true, false, now, duration);
+                    for (StabilityMonitor monitor : monitors) {
+                        monitor.startedChanged(true);
+                    }
+                    commitFlightRecorderEvent();
                     getListenerTasks(LifecycleEvent.UP, listenerTransitionTasks);
-                    tasks.add(new DependencyStartedTask());
+                    getValueFutureTask(State.UP, listenerTransitionTasks);
+                    tasks.add(dependencyStartedTask.scheduled());
                     break;
                 }
                 case UP_to_STOP_REQUESTED: {
                     lifecycleTime = System.nanoTime();
-                    if (mode == Mode.LAZY && demandedByCount == 0) {
+                    if (mode == Mode.LAZY && demandedByCount() == 0) {
                         assert dependenciesDemanded;
-                        tasks.add(new UndemandDependenciesTask());
+                        tasks.add(undemandDependenciesTask);
                         dependenciesDemanded = false;
                     }
-                    tasks.add(new DependencyStoppedTask());
+                    tasks.add(dependencyStoppedTask.scheduled());
                     break;
                 }
                 case STOP_REQUESTED_to_STOPPING: {
+                    flightRecorderEvent = JDKSpecific.beginStopEvent();
                     ChildServiceTarget childTarget = this.childTarget;
                     if (childTarget != null) {
                         childTarget.valid = false;
                         this.childTarget = null;
                     }
-                    tasks.add(new StopTask());
-                    tasks.add(new RemoveChildrenTask());
+                    tasks.add(stopTask);
+                    tasks.add(removeChildrenTask);
+                    for (StabilityMonitor monitor : monitors) {
+                        monitor.startedChanged(false);
+                    }
                     break;
                 }
                 case STOPPING_to_DOWN: {
+                    lastStopDuration = duration;
+                    traceLifecycle(false, false, now, duration);
+                    commitFlightRecorderEvent();
                     getListenerTasks(LifecycleEvent.DOWN, listenerTransitionTasks);
-                    tasks.add(new DependencyUnavailableTask());
-                    tasks.add(new DependentStoppedTask());
+                    tasks.add(dependencyUnavailableTask.scheduled());
+                    tasks.add(dependentStoppedTask);
                     break;
                 }
                 case DOWN_to_REMOVING: {
-                    tasks.add(new RemoveTask());
+                    tasks.add(removeTask);
                     break;
                 }
                 case REMOVING_to_REMOVED: {
                     getListenerTasks(LifecycleEvent.REMOVED, listenerTransitionTasks);
+                    getValueFutureTask(State.REMOVED, listenerTransitionTasks);
                     lifecycleListeners.clear();
                     break;
                 }
                 case START_REQUESTED_to_DOWN: {
-                    tasks.add(new DependencyUnavailableTask());
-                    tasks.add(new DependentStoppedTask());
+                    tasks.add(dependencyUnavailableTask.scheduled());
+                    tasks.add(dependentStoppedTask);
                     break;
                 }
                 case STOP_REQUESTED_to_UP: {
-                    tasks.add(new DependencyStartedTask());
+                    tasks.add(dependencyStartedTask.scheduled());
                     break;
                 }
                 case STARTING_to_START_FAILED: {
+                    lastStartTime = now - duration;
+                    lastStartDuration = duration;
+                    traceLifecycle(true, true, now, duration);
+                    commitFlightRecorderEvent();
+                    JDKSpecific.recordFailure(this, startException);
                     getListenerTasks(LifecycleEvent.FAILED, listenerTransitionTasks);
+                    getValueFutureTask(State.START_FAILED, listenerTransitionTasks);
                     container.addFailed(this);
                     for (StabilityMonitor monitor : monitors) {
                         monitor.addFailed(this);
@@ -648,8 +877,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                         childTarget.valid = false;
                         this.childTarget = null;
                     }
-                    tasks.add(new DependencyFailedTask());
-                    tasks.add(new RemoveChildrenTask());
+                    tasks.add(dependencyFailedTask.scheduled());
+                    tasks.add(removeChildrenTask);
                     break;
                 }
                 case START_FAILED_to_DOWN: {
@@ -659,9 +888,9 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                         monitor.removeFailed(this);
                     }
                     startException = null;
-                    tasks.add(new DependencyUnavailableTask());
-                    tasks.add(new DependencyRetryingTask());
-                    tasks.add(new DependentStoppedTask());
+                    tasks.add(dependencyUnavailableTask.scheduled());
+                    tasks.add(dependencyRetryingTask.scheduled());
+                    tasks.add(dependentStoppedTask);
                     break;
                 }
                 case START_FAILED_to_STARTING: {
@@ -669,8 +898,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                     for (StabilityMonitor monitor : monitors) {
                         monitor.removeFailed(this);
                     }
-                    tasks.add(new DependencyRetryingTask());
-                    tasks.add(new StartTask());
+                    tasks.add(dependencyRetryingTask.scheduled());
+                    tasks.add(startTask);
                     break;
                 }
                 default: {
@@ -679,8 +908,12 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             }
             state = transition.getAfter();
         } while (tasks.isEmpty() && listenerTransitionTasks.isEmpty());
-        // Notify waiters that a transition occurred
-        notifyAll();
+        unavailable = isUnavailable();
+        // Notify waiters if a transition brought them the state they wait for
+        final State currentState = state.getState();
+        if (currentState == State.UP || currentState == State.START_FAILED || currentState == State.REMOVED) {
+            stateChange.signalAll();
+        }
         if (tasks.size() > 0) {
             // Postponing listener transition tasks
         } else {
@@ -695,25 +928,61 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         }
     }
 
+    /**
+     * Execute tasks returned by {@link #transition()}. Start and stop tasks always go to the lifecycle executor.
+     * The other tasks are cheap; when the current thread is running a controller task they are queued and run
+     * by this thread after that task completes, when it holds no locks, rather than handed off to the executor.
+     *
+     * @param tasks the tasks to execute
+     */
     void doExecute(final List<Runnable> tasks) {
-        assert !holdsLock(this);
+        assert !holdsLock();
         if (tasks.isEmpty()) return;
         final Executor executor = container.getExecutor();
-        for (Runnable task : tasks) {
-            try {
-                executor.execute(task);
-            } catch (RejectedExecutionException e) {
-                task.run();
+        final DeferredTasks deferred = deferredTasks.get();
+        // the list may be reused by another transition as soon as its last task completes, don't touch it afterwards
+        final int size = tasks.size();
+        Runnable task;
+        for (int i = 0; i < size; i++) {
+            task = tasks.get(i);
+            if (task instanceof ServiceControllerImpl<?>.StartTask || task instanceof ServiceControllerImpl<?>.StopTask) {
+                doExecute(container.getLifecycleExecutor(), task);
+            } else if (deferred.active && deferred.size() < MAX_DEFERRED_TASKS) {
+                deferred.add(task);
+            } else {
+                doExecute(executor, task);
             }
         }
     }
 
+    /**
+     * Get the kind of a task submitted to the container executor, as classified by {@link TaskQueue}.
+     *
+     * @param task the task
+     * @return the kind of the task
+     */
+    static int getTaskKind(final Runnable task) {
+        if (task instanceof ServiceControllerImpl<?>.ControllerTask) {
+            return ((ServiceControllerImpl<?>.ControllerTask) task).getTaskKind();
+        }
+        if (task instanceof StabilityNotification) return TaskQueue.NOTIFICATION;
+        return task instanceof ServiceControllerImpl<?>.LifecycleCommand ? TaskQueue.LIFECYCLE : TaskQueue.BOOKKEEPING;
+    }
+
+    private static void doExecute(final Executor executor, final Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
     public void setMode(final ServiceController.Mode newMode) {
         internalSetMode(null, newMode);
     }
 
     private boolean internalSetMode(final ServiceController.Mode expectedMode, final ServiceController.Mode newMode) {
-        assert !holdsLock(this);
+        assert !holdsLock();
         if (newMode == null) {
             throw new IllegalArgumentException("newMode is null");
         }
@@ -721,7 +990,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             throw new IllegalArgumentException("Container is shutting down");
         }
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
             final Mode oldMode = mode;
             if (expectedMode != null && expectedMode != oldMode) {
@@ -731,52 +1001,75 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 return true;
             }
             internalSetMode(newMode);
+            if (ignoreNotification()) {
+                // the mode takes effect when the installation is committed or rolled back
+                return true;
+            }
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
         return true;
     }
 
     private void internalSetMode(final Mode newMode) {
-        assert holdsLock(this);
+        assert holdsLock();
         final ServiceController.Mode oldMode = mode;
         if (oldMode == Mode.REMOVE) {
             if (state.compareTo(Substate.REMOVING) >= 0) {
                 throw new IllegalStateException("Service already removed");
             }
         }
+        updateMode(newMode);
+    }
+
+    private void updateMode(final Mode newMode) {
+        assert holdsLock();
+        final Mode oldMode = mode;
         mode = newMode;
+        if (oldMode != newMode) {
+            for (StabilityMonitor monitor : monitors) {
+                monitor.modeChanged(oldMode, newMode);
+            }
+        }
     }
 
     @Override
     public void dependencyAvailable() {
+        if (tryUpdateCounter(dependencyCountersUpdater, UNAVAILABLE_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, -1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            assert unavailableDependencies > 0;
-            --unavailableDependencies;
-            if (ignoreNotification() || unavailableDependencies != 0) return;
+            assert unavailableDependencies() > 0;
+            if (updateCounter(dependencyCountersUpdater, UNAVAILABLE_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, -1) != 0 || ignoreNotification()) return;
             // we dropped it to 0
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     @Override
     public void dependencyUnavailable() {
+        if (tryUpdateCounter(dependencyCountersUpdater, UNAVAILABLE_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, 1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            ++unavailableDependencies;
-            if (ignoreNotification() || unavailableDependencies != 1) return;
+            if (updateCounter(dependencyCountersUpdater, UNAVAILABLE_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, 1) != 1 || ignoreNotification()) return;
             // we raised it to 1
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
@@ -788,62 +1081,74 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
 
     @Override
     public void dependencyUp() {
+        if (tryUpdateCounter(dependencyCountersUpdater, STOPPING_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, -1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            assert stoppingDependencies > 0;
-            --stoppingDependencies;
-            if (ignoreNotification() || stoppingDependencies != 0) return;
+            assert stoppingDependencies() > 0;
+            if (updateCounter(dependencyCountersUpdater, STOPPING_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, -1) != 0 || ignoreNotification()) return;
             // we dropped it to 0
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     @Override
     public void dependencyDown() {
+        if (tryUpdateCounter(dependencyCountersUpdater, STOPPING_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, 1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            ++stoppingDependencies;
-            if (ignoreNotification() || stoppingDependencies != 1) return;
+            if (updateCounter(dependencyCountersUpdater, STOPPING_DEPENDENCIES_SHIFT, DEPENDENCY_COUNTER_MASK, 1) != 1 || ignoreNotification()) return;
             // we raised it to 1
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     @Override
     public void dependencyFailed() {
+        if (tryUpdateCounter(dependencyCountersUpdater, FAIL_COUNT_SHIFT, DEPENDENCY_COUNTER_MASK, 1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            ++failCount;
-            if (ignoreNotification() || failCount != 1) return;
+            if (updateCounter(dependencyCountersUpdater, FAIL_COUNT_SHIFT, DEPENDENCY_COUNTER_MASK, 1) != 1 || ignoreNotification()) return;
             // we raised it to 1
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     @Override
     public void dependencySucceeded() {
+        if (tryUpdateCounter(dependencyCountersUpdater, FAIL_COUNT_SHIFT, DEPENDENCY_COUNTER_MASK, -1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            assert failCount > 0;
-            --failCount;
-            if (ignoreNotification() || failCount != 0) return;
+            assert failCount() > 0;
+            if (updateCounter(dependencyCountersUpdater, FAIL_COUNT_SHIFT, DEPENDENCY_COUNTER_MASK, -1) != 0 || ignoreNotification()) return;
             // we dropped it to 0
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
@@ -853,37 +1158,44 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     void dependentsStarted(final int count) {
-        assert !holdsLock(this);
-        synchronized (this) {
-            runningDependents += count;
+        assert !holdsLock();
+        if (tryUpdateCounter(dependentCountersUpdater, RUNNING_DEPENDENTS_SHIFT, DEPENDENT_COUNTER_MASK, count)) return;
+        lock();
+        try {
+            updateCounter(dependentCountersUpdater, RUNNING_DEPENDENTS_SHIFT, DEPENDENT_COUNTER_MASK, count);
+        } finally {
+            unlock();
         }
     }
 
     void dependentStopped() {
-        assert !holdsLock(this);
+        assert !holdsLock();
+        if (tryUpdateCounter(dependentCountersUpdater, RUNNING_DEPENDENTS_SHIFT, DEPENDENT_COUNTER_MASK, -1)) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            assert runningDependents > 0;
-            --runningDependents;
-            if (ignoreNotification() || runningDependents != 0) return;
+            assert runningDependents() > 0;
+            if (updateCounter(dependentCountersUpdater, RUNNING_DEPENDENTS_SHIFT, DEPENDENT_COUNTER_MASK, -1) != 0 || ignoreNotification()) return;
             // we dropped it to 0
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     void newDependent(final Dependent dependent) {
-        assert holdsLock(this);
+        assert holdsLock();
         if (isFailed()) dependent.dependencyFailed();
         if (isUnavailable()) dependent.dependencyUnavailable();
         if (isUp()) dependent.dependencyUp();
     }
 
     private boolean isFailed() {
-        assert holdsLock(this);
+        assert holdsLock();
         if (state == Substate.START_FAILED && finishedTask(DEPENDENCY_FAILED_TASK)) return true;
         if (state == Substate.STARTING && unfinishedTask(DEPENDENCY_RETRYING_TASK)) return true;
         if (state == Substate.DOWN && unfinishedTask(DEPENDENCY_RETRYING_TASK)) return true;
@@ -891,7 +1203,7 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     private boolean isUnavailable() {
-        assert holdsLock(this);
+        assert holdsLock();
         if (state == Substate.NEW || state == Substate.PROBLEM || state == Substate.REMOVING || state == Substate.REMOVED) return true;
         if (state == Substate.DOWN && finishedTask(DEPENDENCY_UNAVAILABLE_TASK)) return true;
         if (state == Substate.START_REQUESTED && unfinishedTask(DEPENDENCY_AVAILABLE_TASK)) return true;
@@ -899,21 +1211,21 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     private boolean isUp() {
-        assert holdsLock(this);
+        assert holdsLock();
         if (state == Substate.UP && finishedTask(DEPENDENCY_STARTED_TASK)) return true;
         if (state == Substate.STOP_REQUESTED && unfinishedTask(DEPENDENCY_STOPPED_TASK)) return true;
         return false;
     }
 
     private boolean unfinishedTask(final int taskFlag) {
-        assert holdsLock(this);
+        assert holdsLock();
         final boolean taskScheduled = (execFlags & (taskFlag << 16)) != 0;
         final boolean taskRunning = (execFlags & taskFlag) == 0;
         return taskScheduled && taskRunning;
     }
 
     private boolean finishedTask(final int taskFlag) {
-        assert holdsLock(this);
+        assert holdsLock();
         final boolean taskUnscheduled = (execFlags & (taskFlag << 16)) == 0;
         final boolean taskFinished = (execFlags & taskFlag) != 0;
         return taskUnscheduled || taskFinished;
@@ -924,13 +1236,14 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     void addDemands(final int demandedByCount) {
-        assert !holdsLock(this);
+        assert !holdsLock();
+        if (tryUpdateCounter(dependentCountersUpdater, DEMANDED_BY_COUNT_SHIFT, DEPENDENT_COUNTER_MASK, demandedByCount)) return;
         final boolean propagate;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            final int cnt = this.demandedByCount;
-            this.demandedByCount += demandedByCount;
+            final int cnt = updateCounter(dependentCountersUpdater, DEMANDED_BY_COUNT_SHIFT, DEPENDENT_COUNTER_MASK, demandedByCount) - demandedByCount;
             if (ignoreNotification()) return;
             boolean notStartedLazy = mode == Mode.LAZY && state != Substate.UP;
             propagate = cnt == 0 && (mode == Mode.ON_DEMAND || notStartedLazy || mode == Mode.PASSIVE);
@@ -938,18 +1251,22 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     void removeDemand() {
-        assert !holdsLock(this);
+        assert !holdsLock();
+        if (tryUpdateCounter(dependentCountersUpdater, DEMANDED_BY_COUNT_SHIFT, DEPENDENT_COUNTER_MASK, -1)) return;
         final boolean propagate;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            assert demandedByCount > 0;
-            final int cnt = --demandedByCount;
+            assert demandedByCount() > 0;
+            final int cnt = updateCounter(dependentCountersUpdater, DEMANDED_BY_COUNT_SHIFT, DEPENDENT_COUNTER_MASK, -1);
             if (ignoreNotification()) return;
             boolean notStartedLazy = mode == Mode.LAZY && state != Substate.UP;
             propagate = cnt == 0 && (mode == Mode.ON_DEMAND || notStartedLazy || mode == Mode.PASSIVE);
@@ -957,25 +1274,31 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     void addChild(final ServiceControllerImpl<?> child) {
-        assert !holdsLock(this);
-        synchronized (this) {
+        assert !holdsLock();
+        lock();
+        try {
             if (state.getState() != State.STARTING && state.getState() != State.UP) {
                 throw new IllegalStateException("Children cannot be added in state " + state.getState());
             }
             children.add(child);
             newDependent(child);
+        } finally {
+            unlock();
         }
     }
 
     void removeChild(final ServiceControllerImpl<?> child) {
-        assert !holdsLock(this);
+        assert !holdsLock();
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
             if (!children.remove(child)) return; // may happen if child installation process failed
             if (ignoreNotification() || children.size() > 0) return;
@@ -983,12 +1306,14 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     Set<ServiceControllerImpl<?>> getChildren() {
-        assert holdsLock(this);
+        assert holdsLock();
         return children;
     }
 
@@ -1001,9 +1326,7 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     public ServiceController.State getState() {
-        synchronized (this) {
-            return state.getState();
-        }
+        return state.getState();
     }
 
     public S getValue() throws IllegalStateException {
@@ -1013,12 +1336,54 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         return ((Service<S>) service).getValue();
     }
 
+    public CompletionStage<S> valueFuture() {
+        assert !holdsLock();
+        if (!(service instanceof Service)) {
+            throw new UnsupportedOperationException();
+        }
+        final CompletableFuture<S> future = new CompletableFuture<>();
+        final ValueFutureTask task;
+        lock();
+        try {
+            final State current = state.getState();
+            // a service being removed is resolved once the removal completes
+            if (current == State.UP || current == State.START_FAILED || state == Substate.REMOVED) {
+                task = new ValueFutureTask(Collections.singletonList(future));
+                task.resolve(current);
+            } else {
+                if (valueFutures == null) valueFutures = new ArrayList<>(1);
+                valueFutures.add(future);
+                task = null;
+            }
+        } finally {
+            unlock();
+        }
+        if (task != null) task.execute();
+        return future.minimalCompletionStage();
+    }
+
+    /**
+     * Hand the pending value futures to a task completing them outside of the lock.
+     *
+     * @param state the state entered
+     * @param tasks the tasks to add to
+     */
+    private void getValueFutureTask(final State state, final List<Runnable> tasks) {
+        assert holdsLock();
+        if (valueFutures == null) return;
+        final ValueFutureTask task = new ValueFutureTask(valueFutures);
+        valueFutures = null;
+        task.resolve(state);
+        tasks.add(task);
+    }
+
     public S awaitValue() throws IllegalStateException, InterruptedException {
-        assert !holdsLock(this);
+        assert !holdsLock();
         if (!(service instanceof Service)) {
             throw new UnsupportedOperationException();
         }
-        synchronized (this) {
+        lock();
+        try {
             for (;;) switch (state.getState()) {
                 case UP: {
                     return ((Service<S>) service).getValue();
@@ -1027,24 +1392,32 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                     throw new IllegalStateException("Failed to start service", startException);
                 }
                 case REMOVED: {
-                    throw new IllegalStateException("Service was removed");
+                    if (state == Substate.REMOVED) {
+                        throw new IllegalStateException("Service was removed");
+                    }
+                    // the removal is still in progress
+                    stateChange.await();
+                    break;
                 }
                 default: {
-                    wait();
+                    stateChange.await();
                 }
             }
+        } finally {
+            unlock();
         }
     }
 
     public S awaitValue(final long time, final TimeUnit unit) throws IllegalStateException, InterruptedException, TimeoutException {
-        assert !holdsLock(this);
+        assert !holdsLock();
         if (!(service instanceof Service)) {
             throw new UnsupportedOperationException();
         }
         long now;
         long then = System.nanoTime();
         long remaining = unit.toNanos(time);
-        synchronized (this) {
+        lock();
+        try {
             do {
                 switch (state.getState()) {
                     case UP: {
@@ -1054,10 +1427,15 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                         throw new IllegalStateException("Failed to start service", startException);
                     }
                     case REMOVED: {
-                        throw new IllegalStateException("Service was removed");
+                        if (state == Substate.REMOVED) {
+                            throw new IllegalStateException("Service was removed");
+                        }
+                        // the removal is still in progress
+                        stateChange.awaitNanos(remaining);
+                        break;
                     }
                     default: {
-                        wait(remaining / 1000000L, (int) (remaining % 1000000L));
+                        stateChange.awaitNanos(remaining);
                     }
                 }
                 // When will then be now?
@@ -1067,6 +1445,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 then = now;
             } while (remaining > 0L);
             throw new TimeoutException("Operation timed out");
+        } finally {
+            unlock();
         }
     }
 
@@ -1081,6 +1461,54 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         return serviceId;
     }
 
+    long getLastStartDuration() {
+        return lastStartDuration;
+    }
+
+    private void commitFlightRecorderEvent() {
+        if (flightRecorderEvent != null) {
+            JDKSpecific.commitLifecycleEvent(flightRecorderEvent, this);
+            flightRecorderEvent = null;
+        }
+    }
+
+    private void traceLifecycle(final boolean start, final boolean failed, final long now, final long duration) {
+        assert holdsLock();
+        final LifecycleTrace trace = container.getLifecycleTrace();
+        if (trace == null) return;
+        trace.record(getTraceName(), start, failed, lifecycleAsync, lifecycleThread, now - duration, lifecycleCallTime, lifecycleReturnTime, now);
+        lifecycleThread = null;
+        lifecycleAsync = false;
+    }
+
+    /**
+     * Get the name identifying this service in traces and flight recordings: its name if it has one,
+     * otherwise the names of the values it provides.
+     *
+     * @return the name
+     */
+    String getTraceName() {
+        if (serviceId != null) {
+            return serviceId.getCanonicalName();
+        } else if (providedValues.size() == 1) {
+            return providedValues.iterator().next().getCanonicalName();
+        } else {
+            return providedValues.toString();
+        }
+    }
+
+    long getLastStartTime() {
+        return lastStartTime;
+    }
+
+    Set<Dependency> getRequires() {
+        return requires;
+    }
+
+    long getLastStopDuration() {
+        return lastStopDuration;
+    }
+
     public ServiceName[] getAliases() {
         return serviceAliases.clone();
     }
@@ -1098,8 +1526,9 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     void addListener(final ContainerShutdownListener listener) {
-        assert !holdsLock(this);
-        synchronized (this) {
+        assert !holdsLock();
+        lock();
+        try {
             if (state == Substate.REMOVED && asyncTasks == 0) {
                 return; // controller is dead
             }
@@ -1108,13 +1537,16 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             }
             shutdownListener = listener;
             shutdownListener.controllerAlive();
+        } finally {
+            unlock();
         }
     }
 
     public void addListener(final LifecycleListener listener) {
         if (listener == null) return;
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
             if (lifecycleListeners.contains(listener)) return;
             lifecycleListeners.add(listener);
@@ -1132,63 +1564,70 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
     public void removeListener(final LifecycleListener listener) {
-        synchronized (this) {
+        lock();
+        try {
             lifecycleListeners.remove(listener);
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public StartException getStartException() {
-        synchronized (this) {
+        lock();
+        try {
             return startException;
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public void retry() {
-        assert !holdsLock(this);
+        assert !holdsLock();
         final List<Runnable> tasks;
-        synchronized (this) {
+        lock();
+        try {
             final boolean leavingRestState = isStableRestState();
-            if (failCount > 0 || state.getState() != ServiceController.State.START_FAILED) return;
+            if (failCount() > 0 || state.getState() != ServiceController.State.START_FAILED) return;
             startException = null;
             tasks = transition();
             addAsyncTasks(tasks.size());
             updateStabilityState(leavingRestState);
+        } finally {
+            unlock();
         }
         doExecute(tasks);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * No lock is taken: each dependency's availability is read from the snapshot its controller publishes on
+     * every transition, so the result may be slightly stale but never blocks the dependencies.
+     */
     @Override
     public Set<ServiceName> getUnavailableDependencies() {
         final Set<ServiceName> retVal = new IdentityHashSet<>();
+        ServiceControllerImpl<?> controller;
         for (Dependency dependency : requires) {
-            synchronized (dependency.getLock()) {
-                if (isUnavailable(dependency)) {
-                    retVal.add(dependency.getName());
-                }
+            controller = dependency.getDependencyController();
+            if (controller == null || controller.unavailable) {
+                retVal.add(dependency.getName());
             }
         }
         return Collections.unmodifiableSet(retVal);
     }
 
-    private static boolean isUnavailable(final Dependency dependency) {
-        final ServiceControllerImpl controller = dependency.getDependencyController();
-        if (controller == null) return true;
-        synchronized (controller) {
-            return controller.isUnavailable();
-        }
-    }
-
     public ServiceController.Mode getMode() {
-        synchronized (this) {
-            return mode;
-        }
+        return mode;
     }
 
     public boolean compareAndSetMode(final Mode expectedMode, final Mode newMode) {
@@ -1199,7 +1638,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     ServiceStatus getStatus() {
-        synchronized (this) {
+        lock();
+        try {
             // id
             final String id = service.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(service));
 
@@ -1249,51 +1689,71 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                     state.getState().name(),
                     startException != null ? startException.toString() : null
             );
+        } finally {
+            unlock();
         }
     }
 
     void addMonitor(final StabilityMonitor monitor) {
-        assert !holdsLock(this);
-        synchronized (this) {
+        assert !holdsLock();
+        lock();
+        try {
             if (!monitors.add(monitor)) return;
             if (!isStableRestState()) {
                 monitor.incrementUnstableServices();
             }
+            if (state != Substate.REMOVED) {
+                monitor.addStatistics(mode, state.getState() == State.UP);
+            }
             if (state == Substate.START_FAILED) {
                 monitor.addFailed(this);
             } else if (state == Substate.PROBLEM) {
                 monitor.addProblem(this);
             }
+        } finally {
+            unlock();
         }
     }
 
     void removeMonitor(final StabilityMonitor monitor) {
-        assert !holdsLock(this);
-        synchronized (this) {
+        assert !holdsLock();
+        lock();
+        try {
             if (!monitors.remove(monitor)) return;
             if (!isStableRestState()) {
-                monitor.decrementUnstableServices();
+                monitor.decrementUnstableServices(container.getExecutor());
+            }
+            if (state != Substate.REMOVED) {
+                monitor.removeStatistics(mode, state.getState() == State.UP);
             }
             monitor.removeProblem(this);
             monitor.removeFailed(this);
+        } finally {
+            unlock();
         }
     }
 
     void removeMonitorNoCallback(final StabilityMonitor monitor) {
-        assert !holdsLock(this);
-        synchronized (this) {
+        assert !holdsLock();
+        lock();
+        try {
             monitors.remove(monitor);
+        } finally {
+            unlock();
         }
     }
 
     Set<StabilityMonitor> getMonitors() {
-        assert holdsLock(this);
+        assert holdsLock();
         return monitors;
     }
 
     private Substate getSubstate() {
-        synchronized (this) {
+        lock();
+        try {
             return state;
+        } finally {
+            unlock();
         }
     }
 
@@ -1301,6 +1761,10 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         return provides.keySet();
     }
 
+    Set<Dependency> getDependencies() {
+        return requires;
+    }
+
     private void checkProvidedValues() {
         WritableValueImpl injector;
         for (Entry<ServiceRegistrationImpl, WritableValueImpl> entry : provides.entrySet()) {
@@ -1363,34 +1827,90 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     private abstract class ControllerTask implements Runnable {
-        private ControllerTask() {
-            assert holdsLock(ServiceControllerImpl.this);
-        }
 
         public final void run() {
-            assert !holdsLock(ServiceControllerImpl.this);
+            assert !holdsLock();
+            if (getTaskKind() == TaskQueue.LIFECYCLE && container.getLifecycleExecutor() != container.getExecutor()) {
+                // running on a virtual thread, the tasks this one causes belong to the container threads
+                try {
+                    if (execute()) executed();
+                } catch (Throwable t) {
+                    ServiceLogger.SERVICE.internalServiceError(t, getName());
+                }
+                return;
+            }
+            final DeferredTasks deferred = deferredTasks.get();
+            if (deferred.active) {
+                // run inline by a thread already running controller tasks
+                doRun(deferred);
+                return;
+            }
             try {
-                beforeExecute();
-                if (!execute()) return;
-                final List<Runnable> tasks;
-                synchronized (ServiceControllerImpl.this) {
-                    final boolean leavingRestState = isStableRestState();
-                    // Subtract one for this task
-                    decrementAsyncTasks();
-                    tasks = transition();
-                    addAsyncTasks(tasks.size());
-                    updateStabilityState(leavingRestState);
+                // user code might wait for the tasks it causes, so those are only deferred once it has returned
+                if (!invokesUserCode()) deferred.active = true;
+                doRun(deferred);
+                final Executor executor = container.getExecutor();
+                ControllerTask task;
+                for (int inlined = 0; (task = (ControllerTask) deferred.poll()) != null; inlined++) {
+                    if (inlined >= MAX_INLINE_TASKS || task.invokesUserCode() && !deferred.isEmpty()) {
+                        doExecute(executor, task);
+                    } else if (task.invokesUserCode()) {
+                        // nothing left queued which the user code could wait for
+                        deferred.active = false;
+                        task.run();
+                        deferred.active = true;
+                    } else {
+                        task.run();
+                    }
                 }
-                doExecute(tasks);
+            } finally {
+                deferred.active = false;
+            }
+        }
+
+        private void doRun(final DeferredTasks deferred) {
+            try {
+                final boolean executed = execute();
+                deferred.active = true;
+                if (executed) executed();
             } catch (Throwable t) {
                 ServiceLogger.SERVICE.internalServiceError(t, getName());
+            }
+        }
+
+        /**
+         * Whether {@link #execute()} calls user code, which must not run while the current thread has tasks queued.
+         */
+        boolean invokesUserCode() {
+            return false;
+        }
+
+        /**
+         * The kind of this task for {@link TaskSchedulingPolicy#PRIORITY PRIORITY} scheduling.
+         */
+        int getTaskKind() {
+            return TaskQueue.BOOKKEEPING;
+        }
+
+        /**
+         * Account for the completion of this task and continue the transition.
+         */
+        final void executed() {
+            final List<Runnable> tasks;
+            lock();
+            try {
+                final boolean leavingRestState = isStableRestState();
+                // Subtract one for this task
+                decrementAsyncTasks();
+                tasks = transition();
+                addAsyncTasks(tasks.size());
+                updateStabilityState(leavingRestState);
             } finally {
-                afterExecute();
+                unlock();
             }
+            doExecute(tasks);
         }
 
-        void afterExecute() {}
-        void beforeExecute() {}
         abstract boolean execute();
     }
 
@@ -1399,13 +1919,11 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             Lockable lock;
             for (Dependency dependency : requires) {
                 lock = dependency.getLock();
-                synchronized (lock) {
-                    lock.acquireWrite();
-                    try {
-                        inform(dependency);
-                    } finally {
-                        lock.releaseWrite();
-                    }
+                lock.acquireWrite();
+                try {
+                    inform(dependency);
+                } finally {
+                    lock.releaseWrite();
                 }
             }
             if (parent != null) inform(parent);
@@ -1421,39 +1939,136 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
 
         private DependentsControllerTask(final int execFlag) {
             this.execFlag = execFlag;
+        }
+
+        /**
+         * Mark this task as scheduled in the execution flags. Call under the lock.
+         *
+         * @return this task
+         */
+        final DependentsControllerTask scheduled() {
+            assert holdsLock();
             execFlags |= (execFlag << 16);
+            return this;
         }
 
         final boolean execute() {
-            for (ServiceRegistrationImpl registration : provides.keySet()) {
-                for (Dependent dependent : registration.getDependents()) {
-                    inform(dependent);
+            acquireReadLocks();
+            boolean chunked = false;
+            try {
+                int dependentsCount = 0;
+                for (ServiceRegistrationImpl registration : provides.keySet()) {
+                    dependentsCount += registration.getDependents().size();
+                }
+                if (dependentsCount > DEPENDENTS_CHUNK_SIZE) {
+                    final ChunkedNotification notification = new ChunkedNotification(dependentsCount);
+                    chunked = true;
+                    notification.start();
+                    return false;
                 }
+                for (ServiceRegistrationImpl registration : provides.keySet()) {
+                    for (Dependent dependent : registration.getDependents()) {
+                        inform(dependent);
+                    }
+                }
+                informChildren();
+                return true;
+            } finally {
+                // once chunked, the last chunk to finish releases the read locks
+                if (!chunked) releaseReadLocks();
             }
-            synchronized (ServiceControllerImpl.this) {
+        }
+
+        private void informChildren() {
+            lock();
+            try {
                 for (Dependent child : children) {
                     inform(child);
                 }
                 execFlags |= execFlag;
+                unavailable = isUnavailable();
+            } finally {
+                unlock();
             }
-            return true;
         }
 
         void inform(final Dependent dependent) {}
 
-        void beforeExecute() {
+        private void acquireReadLocks() {
             Lockable lock;
             for (ServiceRegistrationImpl registration : provides.keySet()) {
                 lock = registration.getLock();
-                synchronized (lock) { lock.acquireRead(); }
+                lock.acquireRead();
             }
         }
 
-        void afterExecute() {
+        private void releaseReadLocks() {
             Lockable lock;
             for (ServiceRegistrationImpl registration : provides.keySet()) {
                 lock = registration.getLock();
-                synchronized (lock) { lock.releaseRead(); }
+                lock.releaseRead();
+            }
+        }
+
+        /**
+         * Notification of the dependents in chunks. Helper tasks claim chunks from the container executor while
+         * the thread which started the notification claims them too, so that thread alone notifies every chunk
+         * no other thread got to; it never waits for the helpers, which could otherwise deadlock with writers of
+         * our registrations occupying the executor. The last chunk to finish completes the task.
+         */
+        private final class ChunkedNotification implements Runnable {
+            private final Dependent[] dependents;
+            private final AtomicInteger nextChunk = new AtomicInteger();
+            private final AtomicInteger unfinishedChunks;
+
+            private ChunkedNotification(final int dependentsCount) {
+                dependents = new Dependent[dependentsCount];
+                int i = 0;
+                for (ServiceRegistrationImpl registration : provides.keySet()) {
+                    for (Dependent dependent : registration.getDependents()) {
+                        dependents[i++] = dependent;
+                    }
+                }
+                unfinishedChunks = new AtomicInteger((dependentsCount + DEPENDENTS_CHUNK_SIZE - 1) / DEPENDENTS_CHUNK_SIZE);
+            }
+
+            void start() {
+                final Executor executor = container.getExecutor();
+                for (int helpers = unfinishedChunks.get() - 1; helpers > 0; helpers--) {
+                    try {
+                        executor.execute(this);
+                    } catch (RejectedExecutionException e) {
+                        break;
+                    }
+                }
+                run();
+            }
+
+            public void run() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) * DEPENDENTS_CHUNK_SIZE < dependents.length) {
+                    final int end = Math.min((chunk + 1) * DEPENDENTS_CHUNK_SIZE, dependents.length);
+                    try {
+                        for (int i = chunk * DEPENDENTS_CHUNK_SIZE; i < end; i++) {
+                            inform(dependents[i]);
+                        }
+                    } catch (Throwable t) {
+                        ServiceLogger.SERVICE.internalServiceError(t, getName());
+                    }
+                    if (unfinishedChunks.decrementAndGet() == 0) {
+                        try {
+                            try {
+                                informChildren();
+                            } finally {
+                                releaseReadLocks();
+                            }
+                            executed();
+                        } catch (Throwable t) {
+                            ServiceLogger.SERVICE.internalServiceError(t, getName());
+                        }
+                        return;
+                    }
+                }
             }
         }
     }
@@ -1509,14 +2124,24 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     private final class StartTask extends ControllerTask {
+        boolean invokesUserCode() {
+            return true;
+        }
+
+        int getTaskKind() {
+            return TaskQueue.LIFECYCLE;
+        }
+
         boolean execute() {
             final StartContextImpl context = new StartContextImpl();
             try {
                 inject(injections);
                 startService(service, context);
                 boolean startFailed;
-                synchronized (context.lock) {
+                lock();
+                try {
                     context.state |= AbstractContext.CLOSED;
+                    lifecycleAsync = (context.state & AbstractContext.ASYNC) != 0;
                     if ((context.state & AbstractContext.ASYNC) != 0) {
                         // asynchronous() was called
                         if ((context.state & (AbstractContext.COMPLETED | AbstractContext.FAILED)) == 0) {
@@ -1531,6 +2156,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                         }
                     }
                     startFailed = (context.state & AbstractContext.FAILED) != 0;
+                } finally {
+                    unlock();
                 }
                 if (startFailed) {
                     uninject(injections);
@@ -1549,9 +2176,15 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
 
         private void startService(org.jboss.msc.Service service, StartContext context) throws StartException {
             final ClassLoader contextClassLoader = setTCCL(getCL(service.getClass()));
+            final boolean traced = container.getLifecycleTrace() != null;
+            if (traced) {
+                lifecycleThread = Thread.currentThread();
+                lifecycleCallTime = System.nanoTime();
+            }
             try {
                 service.start(context);
             } finally {
+                if (traced) lifecycleReturnTime = System.nanoTime();
                 setTCCL(contextClassLoader);
             }
         }
@@ -1559,17 +2192,26 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
 
     private void startFailed(final StartException e, final StartContextImpl context) {
         ServiceLogger.FAIL.startFailed(e, getName());
-        synchronized (context.lock) {
+        lock();
+        try {
             context.state |= (AbstractContext.FAILED | AbstractContext.CLOSED);
-            synchronized (ServiceControllerImpl.this) {
-                startException = e;
-            }
+            startException = e;
+        } finally {
+            unlock();
         }
         uninject(injections);
         uninjectProvides(provides.values());
     }
 
     private final class StopTask extends ControllerTask {
+        boolean invokesUserCode() {
+            return true;
+        }
+
+        int getTaskKind() {
+            return TaskQueue.LIFECYCLE;
+        }
+
         boolean execute() {
             final StopContextImpl context = new StopContextImpl();
             boolean ok = false;
@@ -1579,8 +2221,10 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             } catch (Throwable t) {
                 ServiceLogger.FAIL.stopFailed(t, getName());
             } finally {
-                synchronized (context.lock) {
+                lock();
+                try {
                     context.state |= AbstractContext.CLOSED;
+                    lifecycleAsync = (context.state & AbstractContext.ASYNC) != 0;
                     if (ok & (context.state & AbstractContext.ASYNC) != 0) {
                         // no exception thrown and asynchronous() was called
                         if ((context.state & AbstractContext.COMPLETED) == 0) {
@@ -1594,6 +2238,8 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                             context.state |= AbstractContext.COMPLETED;
                         }
                     }
+                } finally {
+                    unlock();
                 }
                 uninject(injections);
                 uninjectProvides(provides.values());
@@ -1603,9 +2249,15 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
 
         private void stopService(org.jboss.msc.Service service, StopContext context) {
             final ClassLoader contextClassLoader = setTCCL(getCL(service.getClass()));
+            final boolean traced = container.getLifecycleTrace() != null;
+            if (traced) {
+                lifecycleThread = Thread.currentThread();
+                lifecycleCallTime = System.nanoTime();
+            }
             try {
                 service.stop(context);
             } finally {
+                if (traced) lifecycleReturnTime = System.nanoTime();
                 setTCCL(contextClassLoader);
             }
         }
@@ -1620,6 +2272,14 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             this.event = event;
         }
 
+        boolean invokesUserCode() {
+            return true;
+        }
+
+        int getTaskKind() {
+            return TaskQueue.NOTIFICATION;
+        }
+
         boolean execute() {
             final ClassLoader oldCL = setTCCL(getCL(listener.getClass()));
             try {
@@ -1633,10 +2293,83 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         }
     }
 
+    /**
+     * A command a service submitted to the executor of its lifecycle context.
+     */
+    private final class LifecycleCommand implements Runnable {
+        private final Runnable command;
+
+        LifecycleCommand(final Runnable command) {
+            this.command = command;
+        }
+
+        public void run() {
+            final ClassLoader contextClassLoader = setTCCL(getCL(command.getClass()));
+            try {
+                command.run();
+            } finally {
+                setTCCL(contextClassLoader);
+            }
+        }
+    }
+
+    private final class ValueFutureTask extends ControllerTask {
+        private final List<CompletableFuture<S>> futures;
+        private S value;
+        private Throwable failure;
+
+        ValueFutureTask(final List<CompletableFuture<S>> futures) {
+            this.futures = futures;
+        }
+
+        void resolve(final State state) {
+            assert holdsLock();
+            switch (state) {
+                case UP: {
+                    try {
+                        value = ((Service<S>) service).getValue();
+                    } catch (Throwable t) {
+                        failure = t;
+                    }
+                    break;
+                }
+                case START_FAILED: {
+                    failure = new IllegalStateException("Failed to start service", startException);
+                    break;
+                }
+                default: {
+                    failure = new IllegalStateException("Service was removed");
+                }
+            }
+        }
+
+        boolean invokesUserCode() {
+            return true;
+        }
+
+        int getTaskKind() {
+            return TaskQueue.NOTIFICATION;
+        }
+
+        boolean execute() {
+            for (CompletableFuture<S> future : futures) {
+                if (failure == null) {
+                    future.complete(value);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            }
+            return true;
+        }
+    }
+
     private final class RemoveChildrenTask extends ControllerTask {
         boolean execute() {
-            synchronized (ServiceControllerImpl.this) {
+            lock();
+            try {
                 for (ServiceControllerImpl<?> child : children) child.setMode(Mode.REMOVE);
+            } finally {
+                unlock();
             }
             return true;
         }
@@ -1654,36 +2387,33 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
                 registration = provided.getKey();
                 injector = provided.getValue();
                 lock = registration.getLock();
-                synchronized (lock) {
-                    lock.acquireWrite();
-                    try {
-                        if (injector != null) {
-                            injector.setInstance(null);
-                        }
-                        removeRegistration = registration.clear(ServiceControllerImpl.this);
-                        if (removeRegistration) {
-                            container.removeRegistration(registration.getName());
-                        }
-                    } finally {
-                        lock.releaseWrite();
+                lock.acquireWrite();
+                try {
+                    if (injector != null) {
+                        injector.setInstance(null);
+                    }
+                    removeRegistration = registration.clear(ServiceControllerImpl.this);
+                    if (removeRegistration) {
+                        container.removeRegistration(registration.getName());
                     }
+                } finally {
+                    lock.releaseWrite();
                 }
             }
             for (Dependency dependency : requires) {
                 lock = dependency.getLock();
-                synchronized (lock) {
-                    lock.acquireWrite();
-                    try {
-                        removeRegistration = dependency.removeDependent(ServiceControllerImpl.this);
-                        if (removeRegistration) {
-                            container.removeRegistration(dependency.getName());
-                        }
-                    } finally {
-                        lock.releaseWrite();
+                lock.acquireWrite();
+                try {
+                    removeRegistration = dependency.removeDependent(ServiceControllerImpl.this);
+                    if (removeRegistration) {
+                        container.removeRegistration(dependency.getName());
                     }
+                } finally {
+                    lock.releaseWrite();
                 }
             }
             if (parent != null) parent.removeChild(ServiceControllerImpl.this);
+            container.removeFromDependencyOrder(ServiceControllerImpl.this);
             return true;
         }
     }
@@ -1694,31 +2424,39 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         static final int COMPLETED = 1 << 2;
         static final int FAILED = 1 << 3;
 
+        /**
+         * The context state, guarded by the controller lock.
+         */
         int state;
-        final Object lock = new Object();
 
         abstract void onComplete();
 
         final int setState(final int newState) {
-            synchronized (lock) {
+            lock();
+            try {
                 if (((newState & ASYNC) != 0 && ((state & ASYNC) != 0 || (state & CLOSED) != 0)) ||
                     ((newState & (COMPLETED | FAILED)) != 0 && (state & (COMPLETED | FAILED)) != 0) ||
                     ((newState & (COMPLETED | FAILED)) != 0 && (state & CLOSED) != 0 && (state & ASYNC) == 0)) {
                     throw new IllegalStateException(ILLEGAL_CONTROLLER_STATE);
                 }
                 return state |= newState;
+            } finally {
+                unlock();
             }
         }
 
         final void taskCompleted() {
             final List<Runnable> tasks;
-            synchronized (ServiceControllerImpl.this) {
+            lock();
+            try {
                 final boolean leavingRestState = isStableRestState();
                 // Subtract one for this task
                 decrementAsyncTasks();
                 tasks = transition();
                 addAsyncTasks(tasks.size());
                 updateStabilityState(leavingRestState);
+            } finally {
+                unlock();
             }
             doExecute(tasks);
         }
@@ -1745,21 +2483,22 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
 
         public final void execute(final Runnable command) {
             if (command == null) return;
-            synchronized (lock) {
+            final Runnable task = new LifecycleCommand(command);
+            lock();
+            try {
                 if ((state & (COMPLETED | FAILED)) != 0) {
                     throw new IllegalStateException("Lifecycle context is no longer valid");
                 }
-                doExecute(Collections.singletonList(new Runnable() {
-                    public void run() {
-                        final ClassLoader contextClassLoader = setTCCL(getCL(command.getClass()));
-                        try {
-                            command.run();
-                        } finally {
-                            setTCCL(contextClassLoader);
-                        }
-                    }
-                }));
+                try {
+                    container.getLifecycleExecutor().execute(task);
+                    return;
+                } catch (RejectedExecutionException ignored) {
+                    // run it below, the controller lock must not be held while running the command
+                }
+            } finally {
+                unlock();
             }
+            task.run();
         }
     }
 
@@ -1772,11 +2511,12 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             reason.setServiceName(serviceName);
             ServiceLogger.FAIL.startFailed(reason, serviceName);
             final int state;
-            synchronized (lock) {
+            lock();
+            try {
                 state = setState(FAILED);
-                synchronized (ServiceControllerImpl.this) {
-                    startException = reason;
-                }
+                startException = reason;
+            } finally {
+                unlock();
             }
             if ((state & CLOSED) != 0) {
                 uninject(injections);
@@ -1786,16 +2526,17 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
         }
 
         public ServiceTarget getChildTarget() {
-            synchronized (lock) {
+            lock();
+            try {
                 if ((state & (COMPLETED | FAILED)) != 0) {
                     throw new IllegalStateException("Lifecycle context is no longer valid");
                 }
-                synchronized (ServiceControllerImpl.this) {
-                    if (childTarget == null) {
-                        childTarget = new ChildServiceTarget(container);
-                    }
-                    return childTarget;
+                if (childTarget == null) {
+                    childTarget = new ChildServiceTarget(container);
                 }
+                return childTarget;
+            } finally {
+                unlock();
             }
         }
 
@@ -1829,6 +2570,13 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
             return super.install(serviceBuilder);
         }
 
+        void prepareInstall(final ServiceBuilderImpl<?> serviceBuilder) {
+            if (! valid) {
+                throw new IllegalStateException("Service target is no longer valid");
+            }
+            super.prepareInstall(serviceBuilder);
+        }
+
         protected <T> ServiceBuilder<T> createServiceBuilder(final ServiceName name, final Service<T> service, final ServiceControllerImpl<?> parent) {
             return super.createServiceBuilder(name, service, ServiceControllerImpl.this);
         }
@@ -1844,20 +2592,31 @@ final class ServiceControllerImpl<S> implements ServiceController<S>, Dependent
     }
 
     private void addAsyncTasks(final int size) {
-        assert holdsLock(this);
+        assert holdsLock();
         assert size >= 0;
         if (size > 0) asyncTasks += size;
     }
 
     private void incrementAsyncTasks() {
-        assert holdsLock(this);
+        assert holdsLock();
         asyncTasks++;
     }
 
     private void decrementAsyncTasks() {
-        assert holdsLock(this);
+        assert holdsLock();
         assert asyncTasks > 0;
         asyncTasks--;
     }
 
+    /**
+     * The controller tasks queued by a thread, see {@link #doExecute(List)}.
+     */
+    private static final class DeferredTasks extends ArrayDeque<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Whether the thread is running a controller task, and will therefore run the queued tasks.
+         */
+        boolean active;
+    }
 }
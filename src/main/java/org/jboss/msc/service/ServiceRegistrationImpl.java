@@ -110,12 +110,15 @@ final class ServiceRegistrationImpl extends Lockable implements Dependency {
             dependent.dependencyUnavailable();
             return;
         }
-        synchronized (instance) {
+        instance.lock();
+        try {
             if (!instance.isInstallationCommitted()) {
                 dependent.dependencyUnavailable();
                 return;
             }
             instance.newDependent(dependent);
+        } finally {
+            instance.unlock();
         }
     }
 
@@ -169,11 +172,15 @@ final class ServiceRegistrationImpl extends Lockable implements Dependency {
         return name;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is a plain volatile read which never blocks. The returned controller is the one installed when
+     * the read happened; it may be removed concurrently.
+     */
     @Override
     public ServiceControllerImpl<?> getDependencyController() {
-        synchronized (this) {
-            return instance;
-        }
+        return instance;
     }
 
     @Override
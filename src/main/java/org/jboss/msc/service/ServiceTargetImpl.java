@@ -24,7 +24,10 @@ package org.jboss.msc.service;
 
 import static java.util.Collections.synchronizedSet;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -85,6 +88,33 @@ class ServiceTargetImpl implements ServiceTarget {
         return createServiceBuilder(null, null);
     }
 
+    @Override
+    public List<ServiceController<?>> installAll(final Collection<? extends ServiceBuilder<?>> builders) throws ServiceRegistryException {
+        if (builders == null) {
+            throw new IllegalArgumentException("builders is null");
+        }
+        final ServiceContainerImpl container = getContainer();
+        final List<ServiceBuilderImpl<?>> serviceBuilders = new ArrayList<>(builders.size());
+        final Set<ServiceBuilderImpl<?>> distinct = new IdentityHashSet<>();
+        ServiceBuilderImpl<?> serviceBuilder;
+        for (ServiceBuilder<?> builder : builders) {
+            if (!(builder instanceof ServiceBuilderImpl) || ((ServiceBuilderImpl<?>) builder).getServiceTarget().getContainer() != container) {
+                throw new IllegalArgumentException("Service builder was not created by this container");
+            }
+            serviceBuilder = (ServiceBuilderImpl<?>) builder;
+            serviceBuilder.assertInstallable();
+            if (!distinct.add(serviceBuilder)) {
+                throw new IllegalArgumentException("Service builder is contained more than once");
+            }
+            serviceBuilders.add(serviceBuilder);
+        }
+        for (ServiceBuilderImpl<?> sb : serviceBuilders) {
+            sb.markInstalled();
+            sb.getServiceTarget().prepareInstall(sb);
+        }
+        return container.install(serviceBuilders);
+    }
+
     public ServiceTarget addListener(final LifecycleListener listener) {
         if (listener != null) {
             lifecycleListeners.add(listener);
@@ -154,6 +184,21 @@ class ServiceTargetImpl implements ServiceTarget {
         return parent.install(serviceBuilder);
     }
 
+    /**
+     * Apply listeners and dependencies of this target and all its parent targets to {@code serviceBuilder}
+     * before it is installed in a batch.
+     *
+     * @param serviceBuilder a serviceBuilder created by this ServiceTarget
+     */
+    void prepareInstall(ServiceBuilderImpl<?> serviceBuilder) {
+        apply(serviceBuilder);
+        if (parent != null) parent.prepareInstall(serviceBuilder);
+    }
+
+    ServiceContainerImpl getContainer() {
+        return parent.getContainer();
+    }
+
     ServiceRegistrationImpl getOrCreateRegistration(final ServiceName name) {
         return parent.getOrCreateRegistration(name);
     }
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time a service took to start or to stop.
+ *
+ * @see ServiceContainer#getSlowestStarts(int)
+ * @see ServiceContainer#getSlowestStops(int)
+ */
+public final class ServiceTiming {
+
+    private final ServiceController<?> controller;
+    private final long time;
+
+    ServiceTiming(final ServiceController<?> controller, final long time) {
+        this.controller = controller;
+        this.time = time;
+    }
+
+    /**
+     * Get the controller of the service.
+     *
+     * @return the service controller
+     */
+    public ServiceController<?> getController() {
+        return controller;
+    }
+
+    /**
+     * Get the names of the values provided by the service.
+     *
+     * @return the provided value names
+     */
+    public Set<ServiceName> getServiceNames() {
+        return controller.provides();
+    }
+
+    /**
+     * Get the time the service took to start or to stop.
+     *
+     * @param unit the time unit of the result
+     * @return the time
+     */
+    public long getTime(final TimeUnit unit) {
+        return unit.convert(time, TimeUnit.NANOSECONDS);
+    }
+
+    long getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return getServiceNames() + " " + time + " ns";
+    }
+}
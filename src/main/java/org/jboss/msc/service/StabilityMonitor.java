@@ -28,10 +28,18 @@ import static org.jboss.msc.service.ServiceController.Mode.LAZY;
 import static org.jboss.msc.service.ServiceController.Mode.NEVER;
 import static org.jboss.msc.service.ServiceController.Mode.ON_DEMAND;
 import static org.jboss.msc.service.ServiceController.Mode.PASSIVE;
-import static org.jboss.msc.service.ServiceController.State.UP;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.jboss.msc.service.ServiceController.Mode;
 
 /**
  * A stability detection utility. It can be used to detect
@@ -88,6 +96,10 @@ import java.util.concurrent.TimeUnit;
 @Deprecated
 public final class StabilityMonitor {
 
+    private static final int CLEANUP = 1 << 31;
+    private static final AtomicIntegerFieldUpdater<StabilityMonitor> unstableServicesUpdater = AtomicIntegerFieldUpdater.newUpdater(StabilityMonitor.class, "unstableServices");
+    private static final AtomicIntegerFieldUpdater<StabilityMonitor> stabilityWaitersUpdater = AtomicIntegerFieldUpdater.newUpdater(StabilityMonitor.class, "stabilityWaiters");
+
     private final Object stabilityLock = new Object();
     private final Object controllersLock = new Object();
     private final Set<ServiceController<?>> problems = new IdentityHashSet<>();
@@ -96,7 +108,30 @@ public final class StabilityMonitor {
     private boolean addInProgress;
     private boolean cleanupInProgress;
     private boolean removeInProgress;
-    private int unstableServices;
+    /**
+     * The number of unstable services plus the {@code CLEANUP} flag. Controllers update it on every transition
+     * leaving or entering a rest state, so it is updated without taking the {@code stabilityLock}. The flag is set
+     * while {@link #clear()} is in progress, making both updates no-ops without the race of a separate check.
+     */
+    @SuppressWarnings("unused")
+    private volatile int unstableServices;
+    /**
+     * The number of threads and {@code stabilityFutures} waiting for stability. It is read after the unstable
+     * services count drops to zero so the {@code stabilityLock} is only taken when somebody needs to be woken up.
+     */
+    @SuppressWarnings("unused")
+    private volatile int stabilityWaiters;
+    /**
+     * The number of registered controllers in each mode, indexed by {@link Mode#ordinal()}. Controllers update it
+     * under their lock when their mode changes, so statistics are collected without visiting them.
+     */
+    private final int[] modeCounts = new int[Mode.values().length];
+    private int startedCount;
+    /**
+     * Futures returned by {@link #stabilityFuture(StabilityStatistics)} before the monitor became stable, with the
+     * statistics to fill in or {@code null}, guarded by {@code stabilityLock}.
+     */
+    private final Map<CompletableFuture<StabilityStatistics>, StabilityStatistics> stabilityFutures = new IdentityHashMap<>();
 
     /**
      * Register controller with this monitor.
@@ -109,10 +144,10 @@ public final class StabilityMonitor {
         if (controller == null) {
             throw new IllegalArgumentException("Controller is null");
         }
-        if (holdsLock(controller)) {
+        final ServiceControllerImpl<?> serviceController = (ServiceControllerImpl<?>) controller;
+        if (serviceController.holdsLock()) {
             throw new IllegalStateException("Controller lock is held");
         }
-        final ServiceControllerImpl<?> serviceController = (ServiceControllerImpl<?>) controller;
         final boolean addMonitorToController;
         synchronized (controllersLock) {
             awaitCleanupCompletion();
@@ -150,10 +185,10 @@ public final class StabilityMonitor {
         if (controller == null) {
             throw new IllegalArgumentException("Controller is null");
         }
-        if (holdsLock(controller)) {
+        final ServiceControllerImpl<?> serviceController = (ServiceControllerImpl<?>) controller;
+        if (serviceController.holdsLock()) {
             throw new IllegalStateException("Controller lock is held");
         }
-        final ServiceControllerImpl<?> serviceController = (ServiceControllerImpl<?>) controller;
         final boolean removeMonitorFromController;
         synchronized (controllersLock) {
             if (cleanupInProgress) return;
@@ -189,6 +224,7 @@ public final class StabilityMonitor {
      */
     public void clear() {
         final Set<ServiceControllerImpl<?>> controllers;
+        Map<CompletableFuture<StabilityStatistics>, StabilityStatistics> futures = null;
         synchronized (controllersLock) {
             synchronized (stabilityLock) {
                 if (cleanupInProgress) return;
@@ -197,7 +233,9 @@ public final class StabilityMonitor {
                 this.controllers = new IdentityHashSet<>();
                 failed.clear();
                 problems.clear();
-                unstableServices = 0;
+                unstableServices = CLEANUP;
+                Arrays.fill(modeCounts, 0);
+                startedCount = 0;
             }
         }
         try {
@@ -212,10 +250,13 @@ public final class StabilityMonitor {
             synchronized (controllersLock) {
                 synchronized (stabilityLock) {
                     cleanupInProgress = false;
+                    unstableServices = 0;
                     stabilityLock.notifyAll();
+                    futures = takeStabilityFutures();
                 }
                 controllersLock.notifyAll();
             }
+            if (futures != null) new StabilityNotification<>(futures).run();
         }
     }
 
@@ -307,25 +348,28 @@ public final class StabilityMonitor {
      *         while waiting
      */
     public void awaitStability(final Set<? super ServiceController<?>> failed, final Set<? super ServiceController<?>> problems, final StabilityStatistics statistics) throws InterruptedException {
-        final int failedCount;
-        final int problemsCount;
-        synchronized (stabilityLock) {
-            while (unstableServices != 0) {
-                stabilityLock.wait();
-            }
-            // propagate failures
-            if (failed != null) {
-                failed.addAll(this.failed);
-            }
-            failedCount = this.failed.size();
-            // propagate problems
-            if (problems != null) {
-                problems.addAll(this.problems);
+        stabilityWaitersUpdater.incrementAndGet(this);
+        try {
+            synchronized (stabilityLock) {
+                while ((unstableServices & ~CLEANUP) != 0) {
+                    stabilityLock.wait();
+                }
+                // propagate failures
+                if (failed != null) {
+                    failed.addAll(this.failed);
+                }
+                // propagate problems
+                if (problems != null) {
+                    problems.addAll(this.problems);
+                }
+                // propagate statistics
+                if (statistics != null) {
+                    provideStatistics(statistics);
+                }
             }
-            problemsCount = this.problems.size();
+        } finally {
+            stabilityWaitersUpdater.decrementAndGet(this);
         }
-        // propagate statistics
-        provideStatistics(failedCount, problemsCount, statistics);
     }
 
     /**
@@ -344,58 +388,61 @@ public final class StabilityMonitor {
     public boolean awaitStability(final long timeout, final TimeUnit unit, final Set<? super ServiceController<?>> failed, final Set<? super ServiceController<?>> problems, final StabilityStatistics statistics) throws InterruptedException {
         long now = System.nanoTime();
         long remaining = unit.toNanos(timeout);
-        final int failedCount;
-        final int problemsCount;
-        synchronized (stabilityLock) {
-            while (unstableServices != 0) {
-                if (remaining <= 0L) {
-                    return false;
+        stabilityWaitersUpdater.incrementAndGet(this);
+        try {
+            synchronized (stabilityLock) {
+                while ((unstableServices & ~CLEANUP) != 0) {
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    stabilityLock.wait(remaining / 1000000L, (int) (remaining % 1000000L));
+                    remaining -= (-now + (now = System.nanoTime()));
+                }
+                // propagate failures
+                if (failed != null) {
+                    failed.addAll(this.failed);
+                }
+                // propagate problems
+                if (problems != null) {
+                    problems.addAll(this.problems);
+                }
+                // propagate statistics
+                if (statistics != null) {
+                    provideStatistics(statistics);
                 }
-                stabilityLock.wait(remaining / 1000000L, (int) (remaining % 1000000L));
-                remaining -= (-now + (now = System.nanoTime()));
-            }
-            // propagate failures
-            if (failed != null) {
-                failed.addAll(this.failed);
-            }
-            failedCount = this.failed.size();
-            // propagate problems
-            if (problems != null) {
-                problems.addAll(this.problems);
             }
-            problemsCount = this.problems.size();
+        } finally {
+            stabilityWaitersUpdater.decrementAndGet(this);
         }
-        // propagate statistics
-        provideStatistics(failedCount, problemsCount, statistics);
         return true;
     }
 
-    void addProblem(final ServiceController<?> controller) {
-        assert holdsLock(controller);
+    void addProblem(final ServiceControllerImpl<?> controller) {
+        assert controller.holdsLock();
         synchronized (stabilityLock) {
             if (cleanupInProgress) return;
             problems.add(controller);
         }
     }
 
-    void removeProblem(final ServiceController<?> controller) {
-        assert holdsLock(controller);
+    void removeProblem(final ServiceControllerImpl<?> controller) {
+        assert controller.holdsLock();
         synchronized (stabilityLock) {
             if (cleanupInProgress) return;
             problems.remove(controller);
         }
     }
 
-    void addFailed(final ServiceController<?> controller) {
-        assert holdsLock(controller);
+    void addFailed(final ServiceControllerImpl<?> controller) {
+        assert controller.holdsLock();
         synchronized (stabilityLock) {
             if (cleanupInProgress) return;
             failed.add(controller);
         }
     }
 
-    void removeFailed(final ServiceController<?> controller) {
-        assert holdsLock(controller);
+    void removeFailed(final ServiceControllerImpl<?> controller) {
+        assert controller.holdsLock();
         synchronized (stabilityLock) {
             if (cleanupInProgress) return;
             failed.remove(controller);
@@ -403,55 +450,136 @@ public final class StabilityMonitor {
     }
 
     void incrementUnstableServices() {
+        int oldValue;
+        do {
+            oldValue = unstableServices;
+            if ((oldValue & CLEANUP) != 0) return;
+        } while (!unstableServicesUpdater.compareAndSet(this, oldValue, oldValue + 1));
+    }
+
+    void decrementUnstableServices(final Executor executor) {
+        int oldValue;
+        do {
+            oldValue = unstableServices;
+            if ((oldValue & CLEANUP) != 0) return;
+            assert oldValue > 0;
+        } while (!unstableServicesUpdater.compareAndSet(this, oldValue, oldValue - 1));
+        if (oldValue == 1 && stabilityWaiters != 0) {
+            final Map<CompletableFuture<StabilityStatistics>, StabilityStatistics> futures;
+            synchronized (stabilityLock) {
+                stabilityLock.notifyAll();
+                futures = takeStabilityFutures();
+            }
+            // the caller holds a controller lock
+            if (futures != null) new StabilityNotification<>(futures).execute(executor);
+        }
+    }
+
+    /**
+     * Get a stage completing once the monitor is stable, without blocking the current thread. The stage is
+     * already complete if the monitor is stable. Otherwise it is completed by a thread of the container executor
+     * once the monitor becomes stable, or by the thread {@link #clear() clearing} the monitor, so dependent actions
+     * which may block should use the asynchronous methods of the stage.
+     *
+     * @param statistics stability statistics report to fill in once stable, or {@code null}
+     * @return the stage, completed with {@code statistics}
+     */
+    public CompletionStage<StabilityStatistics> stabilityFuture(final StabilityStatistics statistics) {
+        final CompletableFuture<StabilityStatistics> future = new CompletableFuture<>();
+        stabilityWaitersUpdater.incrementAndGet(this);
+        synchronized (stabilityLock) {
+            if ((unstableServices & ~CLEANUP) != 0) {
+                // stays registered as a waiter until completed
+                stabilityFutures.put(future, statistics);
+                return future.minimalCompletionStage();
+            }
+            if (statistics != null) {
+                provideStatistics(statistics);
+            }
+        }
+        stabilityWaitersUpdater.decrementAndGet(this);
+        future.complete(statistics);
+        return future.minimalCompletionStage();
+    }
+
+    /**
+     * Determine whether the monitor is stable at this moment, without waiting.
+     *
+     * @return {@code true} if all the registered controllers are in REST state
+     */
+    public boolean isStable() {
+        return (unstableServices & ~CLEANUP) == 0;
+    }
+
+    private Map<CompletableFuture<StabilityStatistics>, StabilityStatistics> takeStabilityFutures() {
+        assert holdsLock(stabilityLock);
+        // woken threads check the count again, futures are only completed if it is still zero
+        if (stabilityFutures.isEmpty() || (unstableServices & ~CLEANUP) != 0) return null;
+        final Map<CompletableFuture<StabilityStatistics>, StabilityStatistics> futures = new IdentityHashMap<>(stabilityFutures);
+        stabilityFutures.clear();
+        for (StabilityStatistics statistics : futures.values()) {
+            if (statistics != null) {
+                provideStatistics(statistics);
+            }
+        }
+        stabilityWaitersUpdater.addAndGet(this, -futures.size());
+        return futures;
+    }
+
+    /**
+     * Account for a controller registering this monitor.
+     *
+     * @param mode the controller mode
+     * @param started {@code true} if the controller is {@link ServiceController.State#UP UP}
+     */
+    void addStatistics(final Mode mode, final boolean started) {
         synchronized (stabilityLock) {
             if (cleanupInProgress) return;
-            unstableServices++;
+            modeCounts[mode.ordinal()]++;
+            if (started) startedCount++;
         }
     }
 
-    void decrementUnstableServices() {
+    /**
+     * Account for a controller unregistering this monitor or being removed.
+     *
+     * @param mode the controller mode
+     * @param started {@code true} if the controller is {@link ServiceController.State#UP UP}
+     */
+    void removeStatistics(final Mode mode, final boolean started) {
         synchronized (stabilityLock) {
             if (cleanupInProgress) return;
-            if (--unstableServices == 0) {
-                stabilityLock.notifyAll();
-            }
-            assert unstableServices >= 0;
+            modeCounts[mode.ordinal()]--;
+            if (started) startedCount--;
         }
     }
 
-    private void provideStatistics(final int failedCount, final int problemsCount, final StabilityStatistics statistics) {
-        assert !holdsLock(stabilityLock);
-        assert !holdsLock(controllersLock);
-        if (statistics == null) return;
-        // We cannot obtain controllers snapshot and we cannot collect controllers statistics
-        // under stabilityLock because of deadlock possibility. Thus we tolerate that
-        // the snapshot can be little bit out of date until controllersLock is obtained
-        // plus controllers mode and state can be changed during the statistics collection phase.
-        final Set<ServiceControllerImpl<?>> controllers = new IdentityHashSet<>();
-        synchronized (controllersLock) {
-            controllers.addAll(this.controllers); 
+    void modeChanged(final Mode oldMode, final Mode newMode) {
+        synchronized (stabilityLock) {
+            if (cleanupInProgress) return;
+            modeCounts[oldMode.ordinal()]--;
+            modeCounts[newMode.ordinal()]++;
         }
-        // collect statistics
-        int active = 0, lazy = 0, onDemand = 0, never = 0, passive = 0, started = 0;
-        for (final ServiceController<?> controller : controllers) {
-            if (controller.getState() == UP) started++;
-            if (controller.getMode() == ACTIVE) active++;
-            else if (controller.getMode() == PASSIVE) passive++;
-            else if (controller.getMode() == ON_DEMAND) onDemand++;
-            else if (controller.getMode() == NEVER) never++;
-            else if (controller.getMode() == LAZY) lazy++;
+    }
+
+    void startedChanged(final boolean started) {
+        synchronized (stabilityLock) {
+            if (cleanupInProgress) return;
+            startedCount += started ? 1 : -1;
         }
-        // report statistics
-        statistics.setActiveCount(active);
-        statistics.setFailedCount(failedCount);
-        statistics.setLazyCount(lazy);
-        statistics.setOnDemandCount(onDemand);
-        statistics.setNeverCount(never);
-        statistics.setPassiveCount(passive);
-        statistics.setProblemsCount(problemsCount);
-        statistics.setStartedCount(started);
     }
 
+    private void provideStatistics(final StabilityStatistics statistics) {
+        assert holdsLock(stabilityLock);
+        statistics.setActiveCount(modeCounts[ACTIVE.ordinal()]);
+        statistics.setFailedCount(failed.size());
+        statistics.setLazyCount(modeCounts[LAZY.ordinal()]);
+        statistics.setOnDemandCount(modeCounts[ON_DEMAND.ordinal()]);
+        statistics.setNeverCount(modeCounts[NEVER.ordinal()]);
+        statistics.setPassiveCount(modeCounts[PASSIVE.ordinal()]);
+        statistics.setProblemsCount(problems.size());
+        statistics.setStartedCount(startedCount);
+    }
 
     private void awaitAddCompletion() {
         assert holdsLock(controllersLock);
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Completes stability futures on a container thread. The thread observing stability holds a controller lock,
+ * so the dependent actions of the futures must not run on it.
+ *
+ * @param <T> the value type of the futures
+ */
+final class StabilityNotification<T> implements Runnable {
+
+    private final Map<CompletableFuture<T>, T> futures;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param futures the futures with the values to complete them with
+     */
+    StabilityNotification(final Map<CompletableFuture<T>, T> futures) {
+        this.futures = futures;
+    }
+
+    /**
+     * Hand this notification to {@code executor}, or run it if the executor rejects it. The container executor
+     * rejects it once it is shut down, it never discards it.
+     *
+     * @param executor the container executor
+     */
+    void execute(final Executor executor) {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            run();
+        }
+    }
+
+    public void run() {
+        for (Map.Entry<CompletableFuture<T>, T> entry : futures.entrySet()) {
+            entry.getKey().complete(entry.getValue());
+        }
+    }
+}
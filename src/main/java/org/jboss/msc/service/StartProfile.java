@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A profile of the last starts of the services of a container. Services which started several times only
+ * contribute their last start, so the profile describes a boot best when taken right after it.
+ *
+ * @see ServiceContainer#getStartProfile()
+ */
+public final class StartProfile {
+
+    private final List<ServiceTiming> criticalPath;
+    private final long time;
+    private final long[] times;
+    private final int[] parallelism;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param criticalPath the critical path, first start first
+     * @param time the time from the first start to the last start completion, in nanoseconds
+     * @param times the times in which the number of starting services changed, relative to the first start, ascending
+     * @param parallelism the number of starting services from each of these times on
+     */
+    StartProfile(final List<ServiceTiming> criticalPath, final long time, final long[] times, final int[] parallelism) {
+        this.criticalPath = criticalPath;
+        this.time = time;
+        this.times = times;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the critical path, that is the chain of services ending with the one which finished starting last,
+     * in which each service is preceded by the dependency (or parent) which finished starting last before it
+     * started. The first service of the path did not wait for any other start. Optimizing a start which is not
+     * on this path does not make the starts as a whole complete sooner.
+     *
+     * @return the starts on the critical path, first start first
+     */
+    public List<ServiceTiming> getCriticalPath() {
+        return criticalPath;
+    }
+
+    /**
+     * Get the sum of the start times of the services on the critical path. The rest of the {@link #getTime(TimeUnit)
+     * total time} was spent waiting for dependencies to notify their dependents.
+     *
+     * @param unit the time unit of the result
+     * @return the critical path time
+     */
+    public long getCriticalPathTime(final TimeUnit unit) {
+        long sum = 0;
+        for (ServiceTiming timing : criticalPath) {
+            sum += timing.getTime();
+        }
+        return unit.convert(sum, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time from the first start to the last start completion.
+     *
+     * @param unit the time unit of the result
+     * @return the total time
+     */
+    public long getTime(final TimeUnit unit) {
+        return unit.convert(time, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the maximum number of services which were {@link ServiceController.State#STARTING starting} at once.
+     * A service is starting from the scheduling of its start to its completion, so it is waiting for a container
+     * thread or running on one. A maximum below the number of container threads means more threads would not
+     * have helped.
+     *
+     * @return the maximum parallelism
+     */
+    public int getMaxParallelism() {
+        int max = 0;
+        for (int p : parallelism) {
+            if (p > max) max = p;
+        }
+        return max;
+    }
+
+    /**
+     * Get the average number of services which were {@link ServiceController.State#STARTING starting} at once
+     * over the {@link #getTime(TimeUnit) total time}.
+     *
+     * @return the average parallelism
+     */
+    public double getAverageParallelism() {
+        if (time == 0) return 0;
+        double sum = 0;
+        for (int i = 0; i < times.length - 1; i++) {
+            sum += (double) (times[i + 1] - times[i]) * parallelism[i];
+        }
+        return sum / time;
+    }
+
+    /**
+     * Get the maximum number of services which were {@link ServiceController.State#STARTING starting} at once
+     * in each interval of the given length, from the first start on.
+     *
+     * @param interval the length of an interval
+     * @param unit the time unit of the interval
+     * @return the maximum parallelism of each interval
+     */
+    public int[] getParallelism(final long interval, final TimeUnit unit) {
+        final long length = unit.toNanos(interval);
+        if (length <= 0) {
+            throw new IllegalArgumentException("interval is not positive");
+        }
+        final int[] retVal = new int[(int) Math.max(1, (time + length - 1) / length)];
+        int current = 0, max, i = 0;
+        for (int slot = 0; slot < retVal.length; slot++) {
+            max = current;
+            while (i < times.length && times[i] / length <= slot) {
+                current = parallelism[i++];
+                if (current > max) max = current;
+            }
+            retVal[slot] = max;
+        }
+        return retVal;
+    }
+
+    @Override
+    public String toString() {
+        final String ls = System.lineSeparator();
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Start profile").append(ls);
+        sb.append("    time: ").append(time).append(" ns").append(ls);
+        sb.append("    max parallelism: ").append(getMaxParallelism()).append(ls);
+        sb.append("    average parallelism: ").append(String.format("%.2f", getAverageParallelism())).append(ls);
+        sb.append("    critical path:").append(ls);
+        for (ServiceTiming timing : criticalPath) {
+            sb.append("        ").append(timing).append(ls);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * The tasks waiting for a container thread, ordered by a {@link TaskSchedulingPolicy} other than
+ * {@link TaskSchedulingPolicy#FIFO FIFO}. The container submits one {@link #runNext()} call to its executor
+ * for every task added, and each call runs the tasks the policy prefers until none is left, so a task
+ * taken by another call does not leave a task without one.
+ */
+final class TaskQueue {
+
+    /**
+     * Service start and stop tasks, and anything else running user code on behalf of a service lifecycle.
+     */
+    static final int LIFECYCLE = 0;
+    /**
+     * Tasks propagating state changes between controllers.
+     */
+    static final int BOOKKEEPING = 1;
+    /**
+     * Lifecycle listener notifications and the completion of value and stability futures.
+     */
+    static final int NOTIFICATION = 2;
+
+    private final boolean lifo;
+    private final ConcurrentLinkedDeque<Runnable>[] queues;
+
+    @SuppressWarnings("unchecked")
+    TaskQueue(final TaskSchedulingPolicy policy) {
+        assert policy != TaskSchedulingPolicy.FIFO;
+        lifo = policy == TaskSchedulingPolicy.LIFO;
+        queues = new ConcurrentLinkedDeque[lifo ? 1 : NOTIFICATION + 1];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    /**
+     * Add a task.
+     *
+     * @param task the task
+     * @param kind the kind of the task, one of {@link #LIFECYCLE}, {@link #BOOKKEEPING} or {@link #NOTIFICATION}
+     */
+    void add(final Runnable task, final int kind) {
+        queues[lifo ? 0 : kind].addLast(task);
+    }
+
+    /**
+     * Take back a task which was added, unless a {@link #runNext()} call took it already.
+     *
+     * @param task the task
+     * @param kind the kind the task was added with
+     * @return {@code true} if the task was removed
+     */
+    boolean remove(final Runnable task, final int kind) {
+        return lifo ? queues[0].removeLastOccurrence(task) : queues[kind].removeFirstOccurrence(task);
+    }
+
+    private Runnable poll() {
+        if (lifo) return queues[0].pollLast();
+        Runnable task;
+        for (ConcurrentLinkedDeque<Runnable> queue : queues) {
+            if ((task = queue.pollFirst()) != null) return task;
+        }
+        return null;
+    }
+
+    /**
+     * Run the tasks preferred by the policy until none is left.
+     */
+    void runNext() {
+        Runnable task;
+        while ((task = poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import static org.jboss.msc.service.SecurityUtils.getSystemProperty;
+
+import java.util.Locale;
+
+/**
+ * The order in which a service container runs the tasks waiting for one of its threads.
+ * <p>
+ * The container distinguishes three kinds of tasks: service start and stop tasks, the bookkeeping tasks which
+ * propagate state changes through the dependency graph, and the notification of lifecycle listeners. Start and stop
+ * tasks running on virtual threads never wait for a container thread and are not affected by the policy.
+ *
+ * @see ServiceContainer.Factory#create(String, int, long, java.util.concurrent.TimeUnit, boolean, TaskSchedulingPolicy)
+ */
+public enum TaskSchedulingPolicy {
+
+    /**
+     * Run tasks in the order they were submitted.  This is the default policy.
+     */
+    FIFO,
+    /**
+     * Run the most recently submitted task first, so that a dependency chain is followed depth first while
+     * the state it touches is still cached.
+     */
+    LIFO,
+    /**
+     * Run service start and stop tasks first, then bookkeeping tasks, then lifecycle listener notifications,
+     * each kind in the order it was submitted.
+     */
+    PRIORITY,
+    ;
+
+    /**
+     * Get the policy selected by the {@code jboss.msc.task.scheduling.policy} system property.
+     *
+     * @return the default policy
+     */
+    static TaskSchedulingPolicy getDefault() {
+        final String policy = getSystemProperty("jboss.msc.task.scheduling.policy", FIFO.name());
+        try {
+            return valueOf(policy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return FIFO;
+        }
+    }
+}
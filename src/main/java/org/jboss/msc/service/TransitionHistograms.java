@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.msc.service.management.TransitionStatistics;
+
+/**
+ * Latency histograms of the transitions of all controllers of a container, one per {@link Transition}.
+ * Durations are bucketed by powers of two. Every counter is striped, so threads recording the same transition
+ * concurrently do not contend on a shared cache line.
+ */
+final class TransitionHistograms {
+
+    /**
+     * The number of buckets: durations of 2<sup>40</sup> nanoseconds (about 18 minutes) and longer share the last one.
+     */
+    private static final int BUCKETS = 41;
+    private static final Transition[] TRANSITIONS = Transition.values();
+
+    private final Histogram[] histograms = new Histogram[TRANSITIONS.length];
+
+    TransitionHistograms() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Record a transition.
+     *
+     * @param transition the transition
+     * @param duration the time spent in the state it leaves, in nanoseconds
+     */
+    void record(final Transition transition, final long duration) {
+        histograms[transition.ordinal()].record(duration);
+    }
+
+    /**
+     * Get the statistics of every transition which happened at least once.
+     *
+     * @return the statistics
+     */
+    Set<TransitionStatistics> getStatistics() {
+        final Set<TransitionStatistics> retVal = new TreeSet<>();
+        TransitionStatistics statistics;
+        for (int i = 0; i < histograms.length; i++) {
+            statistics = histograms[i].getStatistics(TRANSITIONS[i]);
+            if (statistics.getCount() > 0) retVal.add(statistics);
+        }
+        return retVal;
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder totalTime = new LongAdder();
+        /**
+         * Only written when a duration exceeds the maximum seen so far.
+         */
+        private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(final long duration) {
+            final long time = Math.max(duration, 0);
+            buckets[Math.min(64 - Long.numberOfLeadingZeros(time), BUCKETS - 1)].increment();
+            totalTime.add(time);
+            maxTime.accumulate(time);
+        }
+
+        TransitionStatistics getStatistics(final Transition transition) {
+            final long[] histogram = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = buckets[i].sum();
+                count += histogram[i];
+            }
+            return new TransitionStatistics(transition.name(), count, totalTime.sum(), maxTime.get(), histogram);
+        }
+    }
+}
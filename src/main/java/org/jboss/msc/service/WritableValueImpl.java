@@ -32,7 +32,7 @@ import java.util.function.Consumer;
 final class WritableValueImpl implements Consumer<Object> {
 
     private static final Object UNDEFINED = new Object();
-    private volatile ServiceController controller;
+    private volatile ServiceControllerImpl<?> controller;
     volatile Object value = UNDEFINED;
 
     Object getValue() {
@@ -43,36 +43,46 @@ final class WritableValueImpl implements Consumer<Object> {
 
     @Override
     public void accept(final Object newValue) {
-        final ServiceController controller = this.controller;
-        if (controller != null) synchronized (controller) {
-            final State state = controller.getState();
-            if (state == State.STARTING) {
-                value = newValue;
-                return;
-            } else if (state == State.STOPPING) {
-                if (newValue != null) {
-                    throw new IllegalArgumentException("Null parameter expected");
+        final ServiceControllerImpl<?> controller = this.controller;
+        if (controller != null) {
+            controller.lock();
+            try {
+                final State state = controller.getState();
+                if (state == State.STARTING) {
+                    value = newValue;
+                    return;
+                } else if (state == State.STOPPING) {
+                    if (newValue != null) {
+                        throw new IllegalArgumentException("Null parameter expected");
+                    }
+                    value = UNDEFINED;
+                    return;
                 }
-                value = UNDEFINED;
-                return;
+            } finally {
+                controller.unlock();
             }
         }
         throw new IllegalStateException("Outside of Service lifecycle method");
     }
 
     void uninject() {
-        final ServiceController controller = this.controller;
-        if (controller != null) synchronized (controller) {
-            final State state = controller.getState();
-            if (state == State.STARTING || state == State.STOPPING) {
-                value = UNDEFINED;
-                return;
+        final ServiceControllerImpl<?> controller = this.controller;
+        if (controller != null) {
+            controller.lock();
+            try {
+                final State state = controller.getState();
+                if (state == State.STARTING || state == State.STOPPING) {
+                    value = UNDEFINED;
+                    return;
+                }
+            } finally {
+                controller.unlock();
             }
         }
         throw new IllegalStateException("Outside of Service lifecycle method");
     }
 
-    void setInstance(final ServiceController controller) {
+    void setInstance(final ServiceControllerImpl<?> controller) {
         this.controller = controller;
     }
 
@@ -22,6 +22,7 @@
 
 package org.jboss.msc.service.management;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -370,4 +371,89 @@ public interface ServiceContainerMXBean {
      */
     String dumpServiceIdsByModeToString(String mode);
 
+    /**
+     * Gets the latency statistics of every kind of service transition which happened in this container.
+     * The time of a transition is the time the service spent in the state it leaves, so for example
+     * {@code DOWN_to_START_REQUESTED} shows the time spent waiting for dependencies or demand,
+     * {@code START_REQUESTED_to_STARTING} the time spent notifying dependencies and dependents and
+     * {@code STARTING_to_UP} the time spent queued for and inside the service start.
+     *
+     * @return the latency statistics of the service transitions
+     */
+    Set<TransitionStatistics> getTransitionStatistics();
+
+    /**
+     * Dumps the latency statistics of the service transitions to system console.
+     * The output has no particular standard format and may change over time.
+     */
+    void dumpTransitionStatistics();
+
+    /**
+     * Dumps the latency statistics of the service transitions to string.
+     * The output has no particular standard format and may change over time.
+     *
+     * @return the latency statistics of the service transitions as string
+     */
+    String dumpTransitionStatisticsToString();
+
+    /**
+     * Gets the services which took the longest to start the last time they did, slowest first.
+     *
+     * @param count the maximum number of services
+     * @return the slowest service starts
+     */
+    List<ServiceTimingStatus> querySlowestStarts(int count);
+
+    /**
+     * Dumps the services which took the longest to start to system console.
+     * The output has no particular standard format and may change over time.
+     *
+     * @param count the maximum number of services
+     */
+    void dumpSlowestStarts(int count);
+
+    /**
+     * Dumps the services which took the longest to start to string.
+     * The output has no particular standard format and may change over time.
+     *
+     * @param count the maximum number of services
+     * @return the slowest service starts as string
+     */
+    String dumpSlowestStartsToString(int count);
+
+    /**
+     * Gets the services which took the longest to stop the last time they did, slowest first.
+     *
+     * @param count the maximum number of services
+     * @return the slowest service stops
+     */
+    List<ServiceTimingStatus> querySlowestStops(int count);
+
+    /**
+     * Dumps the services which took the longest to stop to system console.
+     * The output has no particular standard format and may change over time.
+     *
+     * @param count the maximum number of services
+     */
+    void dumpSlowestStops(int count);
+
+    /**
+     * Dumps the services which took the longest to stop to string.
+     * The output has no particular standard format and may change over time.
+     *
+     * @param count the maximum number of services
+     * @return the slowest service stops as string
+     */
+    String dumpSlowestStopsToString(int count);
+
+    /**
+     * Dumps the starts and stops recorded since the container was created to string, as a Chrome Trace Event
+     * JSON document which can be saved and loaded into {@code chrome://tracing} or Perfetto. Recording is only enabled
+     * if the {@code jboss.msc.lifecycle.trace} system property was {@code true} when the container was created.
+     *
+     * @return the recorded starts and stops as string
+     * @throws IllegalStateException if recording is not enabled
+     */
+    String dumpLifecycleTraceToString();
+
 }
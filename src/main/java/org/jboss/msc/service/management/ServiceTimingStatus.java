@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service.management;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * The time some service took to start or to stop.
+ */
+public final class ServiceTimingStatus implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    private final String id;
+    private final String[] providedValues;
+    private final long time;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param id runtime identification of service class
+     * @param providedValues provided values by this service
+     * @param time the time the service took, in nanoseconds
+     */
+    @ConstructorProperties({"id", "providedValues", "time"})
+    public ServiceTimingStatus(final String id, final String[] providedValues, final long time) {
+        this.id = id;
+        this.providedValues = providedValues != null ? providedValues : EMPTY_STRING_ARRAY;
+        this.time = time;
+    }
+
+    /**
+     * Get runtime identification of service class
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The list of provided values by this service.
+     *
+     * @return the provided value names
+     */
+    public String[] getProvidedValues() {
+        return providedValues;
+    }
+
+    /**
+     * Get the time the service took to start or to stop, in nanoseconds.
+     *
+     * @return the time
+     */
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        final String ls = System.lineSeparator();
+        final String indentation = " ".repeat(4);
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Service").append(ls);
+        sb.append(indentation).append("id: ").append(id).append(ls);
+        if (providedValues.length > 0) {
+            sb.append(indentation).append("provides: ").append(ls);
+            for (String providedValue : providedValues) {
+                sb.append(indentation).append(indentation).append(providedValue).append(ls);
+            }
+        }
+        sb.append(indentation).append("time: ").append(time).append(" ns").append(ls);
+        return sb.toString();
+    }
+}
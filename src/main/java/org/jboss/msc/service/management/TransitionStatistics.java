@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service.management;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * Latency statistics of one kind of service controller transition, such as the transition from {@code STARTING}
+ * to {@code UP}. The time of a transition is the time the controller spent in the state it leaves.
+ */
+public final class TransitionStatistics implements Serializable, Comparable<TransitionStatistics> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String transition;
+    private final long count;
+    private final long totalTime;
+    private final long maxTime;
+    private final long[] histogram;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param transition the transition name, such as {@code STARTING_to_UP}
+     * @param count the number of transitions
+     * @param totalTime the total time of all the transitions, in nanoseconds
+     * @param maxTime the time of the longest transition, in nanoseconds
+     * @param histogram the number of transitions per time range, see {@link #getHistogram()}
+     */
+    @ConstructorProperties({"transition", "count", "totalTime", "maxTime", "histogram"})
+    public TransitionStatistics(final String transition, final long count, final long totalTime, final long maxTime, final long[] histogram) {
+        this.transition = transition;
+        this.count = count;
+        this.totalTime = totalTime;
+        this.maxTime = maxTime;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Get the transition name, such as {@code STARTING_to_UP}.
+     *
+     * @return the transition name
+     */
+    public String getTransition() {
+        return transition;
+    }
+
+    /**
+     * Get the number of transitions.
+     *
+     * @return the number of transitions
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the total time of all the transitions, in nanoseconds.
+     *
+     * @return the total time
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Get the time of the longest transition, in nanoseconds.
+     *
+     * @return the maximum time
+     */
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Get the number of transitions per time range. Element {@code i} counts the transitions which took less than
+     * 2<sup>i</sup> nanoseconds and at least 2<sup>i-1</sup> nanoseconds; the last element also counts all
+     * the longer ones.
+     *
+     * @return the histogram
+     */
+    public long[] getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public int hashCode() {
+        return transition.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof TransitionStatistics)) return false;
+        final TransitionStatistics other = (TransitionStatistics) o;
+        return transition.equals(other.transition);
+    }
+
+    @Override
+    public int compareTo(final TransitionStatistics s) {
+        return transition.compareTo(s.transition);
+    }
+
+    @Override
+    public String toString() {
+        final String ls = System.lineSeparator();
+        final String indentation = " ".repeat(4);
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Transition").append(ls);
+        sb.append(indentation).append("transition: ").append(transition).append(ls);
+        sb.append(indentation).append("count: ").append(count).append(ls);
+        sb.append(indentation).append("total time: ").append(totalTime).append(" ns").append(ls);
+        sb.append(indentation).append("max time: ").append(maxTime).append(" ns").append(ls);
+        if (count > 0) {
+            sb.append(indentation).append("histogram: ").append(ls);
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] == 0) continue;
+                sb.append(indentation).append(indentation).append("< ").append(1L << i).append(" ns: ").append(histogram[i]).append(ls);
+            }
+        }
+        return sb.toString();
+    }
+}
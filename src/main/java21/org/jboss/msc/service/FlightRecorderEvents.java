@@ -0,0 +1,188 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JDK Flight Recorder events of MSC. All of them are disabled unless a recording enables them, and every
+ * method checks whether its event type is enabled before allocating anything.
+ */
+final class FlightRecorderEvents {
+
+    private static final EventType START = EventType.getEventType(ServiceStart.class);
+    private static final EventType STOP = EventType.getEventType(ServiceStop.class);
+    private static final EventType FAILURE = EventType.getEventType(ServiceFailure.class);
+    private static final EventType TRANSITION = EventType.getEventType(ServiceTransition.class);
+    private static final EventType STABILITY = EventType.getEventType(StabilityWait.class);
+    private static final EventType QUEUEING = EventType.getEventType(TaskQueueing.class);
+
+    private FlightRecorderEvents() {
+        // forbidden instantiation
+    }
+
+    static Object beginStart() {
+        if (!START.isEnabled()) return null;
+        final ServiceStart event = new ServiceStart();
+        event.begin();
+        return event;
+    }
+
+    static Object beginStop() {
+        if (!STOP.isEnabled()) return null;
+        final ServiceStop event = new ServiceStop();
+        event.begin();
+        return event;
+    }
+
+    static void commitLifecycle(final Object e, final ServiceControllerImpl<?> controller) {
+        final ServiceEvent event = (ServiceEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.service = controller.getTraceName();
+            event.commit();
+        }
+    }
+
+    static void recordFailure(final ServiceControllerImpl<?> controller, final StartException cause) {
+        if (!FAILURE.isEnabled()) return;
+        final ServiceFailure event = new ServiceFailure();
+        if (event.shouldCommit()) {
+            event.service = controller.getTraceName();
+            event.reason = cause == null ? null : String.valueOf(cause.getCause() != null ? cause.getCause() : cause);
+            event.commit();
+        }
+    }
+
+    static void recordTransition(final ServiceControllerImpl<?> controller, final Transition transition, final long duration) {
+        if (!TRANSITION.isEnabled()) return;
+        final ServiceTransition event = new ServiceTransition();
+        if (event.shouldCommit()) {
+            event.service = controller.getTraceName();
+            event.transition = transition.name();
+            event.stateDuration = duration;
+            event.commit();
+        }
+    }
+
+    static Object beginStability() {
+        if (!STABILITY.isEnabled()) return null;
+        final StabilityWait event = new StabilityWait();
+        event.begin();
+        return event;
+    }
+
+    static void commitStability(final Object e, final ServiceContainerImpl container, final boolean stable) {
+        final StabilityWait event = (StabilityWait) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.container = container.getName();
+            event.stable = stable;
+            event.commit();
+        }
+    }
+
+    static Runnable recordQueueing(final Runnable task) {
+        if (!QUEUEING.isEnabled()) return task;
+        final TaskQueueing event = new TaskQueueing();
+        event.begin();
+        return new Runnable() {
+            public void run() {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.task = task.getClass().getName();
+                    event.commit();
+                }
+                task.run();
+            }
+        };
+    }
+
+    @Category("JBoss MSC")
+    @StackTrace(false)
+    abstract static class ServiceEvent extends Event {
+        @Label("Service")
+        String service;
+    }
+
+    @Name("org.jboss.msc.ServiceStart")
+    @Label("Service Start")
+    @Description("A service starting, from the scheduling of its start to its completion")
+    static final class ServiceStart extends ServiceEvent {
+    }
+
+    @Name("org.jboss.msc.ServiceStop")
+    @Label("Service Stop")
+    @Description("A service stopping, from the scheduling of its stop to its completion")
+    static final class ServiceStop extends ServiceEvent {
+    }
+
+    @Name("org.jboss.msc.ServiceFailure")
+    @Label("Service Failure")
+    @Description("A service failing to start")
+    static final class ServiceFailure extends ServiceEvent {
+        @Label("Reason")
+        String reason;
+    }
+
+    @Name("org.jboss.msc.ServiceTransition")
+    @Label("Service Transition")
+    @Description("A service controller moving from one internal state to another")
+    static final class ServiceTransition extends ServiceEvent {
+        @Label("Transition")
+        String transition;
+        @Label("State Duration")
+        @Description("The time spent in the state the transition leaves")
+        @Timespan(Timespan.NANOSECONDS)
+        long stateDuration;
+    }
+
+    @Name("org.jboss.msc.StabilityWait")
+    @Label("Stability Wait")
+    @Description("A thread waiting for a service container to become stable")
+    @Category("JBoss MSC")
+    static final class StabilityWait extends Event {
+        @Label("Container")
+        String container;
+        @Label("Stable")
+        @Description("Whether the container became stable, rather than the wait timing out or being interrupted")
+        boolean stable;
+    }
+
+    @Name("org.jboss.msc.TaskQueueing")
+    @Label("Task Queueing")
+    @Description("A task waiting in the queue of a service container executor")
+    @Category("JBoss MSC")
+    @StackTrace(false)
+    static final class TaskQueueing extends Event {
+        @Label("Task")
+        String task;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * JDK specific code for Java 21 and newer.
+ */
+final class JDKSpecific {
+
+    /**
+     * Whether the {@code jdk.jfr} module is present, it may have been left out of custom runtime images.
+     */
+    private static final boolean FLIGHT_RECORDER = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private JDKSpecific() {
+        // forbidden instantiation
+    }
+
+    /**
+     * Creates an executor running every task on its own virtual thread.
+     *
+     * @param threadNamePrefix the prefix of thread names
+     * @param handler the handler of uncaught exceptions
+     * @return the executor
+     */
+    static Executor newVirtualThreadExecutor(final String threadNamePrefix, final Thread.UncaughtExceptionHandler handler) {
+        final ThreadFactory threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1L).uncaughtExceptionHandler(handler).factory();
+        return new Executor() {
+            public void execute(final Runnable command) {
+                threadFactory.newThread(command).start();
+            }
+        };
+    }
+
+    static Object beginStartEvent() {
+        return FLIGHT_RECORDER ? FlightRecorderEvents.beginStart() : null;
+    }
+
+    static Object beginStopEvent() {
+        return FLIGHT_RECORDER ? FlightRecorderEvents.beginStop() : null;
+    }
+
+    static void commitLifecycleEvent(final Object event, final ServiceControllerImpl<?> controller) {
+        FlightRecorderEvents.commitLifecycle(event, controller);
+    }
+
+    static void recordFailure(final ServiceControllerImpl<?> controller, final StartException cause) {
+        if (FLIGHT_RECORDER) FlightRecorderEvents.recordFailure(controller, cause);
+    }
+
+    static void recordTransition(final ServiceControllerImpl<?> controller, final Transition transition, final long duration) {
+        if (FLIGHT_RECORDER) FlightRecorderEvents.recordTransition(controller, transition, duration);
+    }
+
+    static Object beginStabilityEvent() {
+        return FLIGHT_RECORDER ? FlightRecorderEvents.beginStability() : null;
+    }
+
+    static void commitStabilityEvent(final Object event, final ServiceContainerImpl container, final boolean stable) {
+        FlightRecorderEvents.commitStability(event, container, stable);
+    }
+
+    static Runnable recordQueueing(final Runnable task) {
+        return FLIGHT_RECORDER ? FlightRecorderEvents.recordQueueing(task) : task;
+    }
+}
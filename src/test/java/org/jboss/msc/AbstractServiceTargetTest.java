@@ -23,11 +23,17 @@
 package org.jboss.msc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
 
+import org.jboss.msc.service.CircularDependencyException;
+import org.jboss.msc.service.DuplicateServiceException;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
@@ -146,4 +152,82 @@ public abstract class AbstractServiceTargetTest extends AbstractServiceTest {
      *          will be installed into {@code serviceTarget}
      */
     protected abstract ServiceTarget getServiceTarget(ServiceTarget serviceTarget);
+
+    @Test
+    public void installAll() throws Exception {
+        final TestLifecycleListener testListener = new TestLifecycleListener();
+        serviceTarget.addListener(testListener);
+
+        // dependent first
+        ServiceBuilder<?> sb1 = serviceTarget.addService();
+        Consumer<String> providedValue = sb1.provides(serviceName);
+        sb1.requires(anotherServiceName);
+        sb1.setInstance(Service.newInstance(providedValue, serviceName.toString()));
+
+        ServiceBuilder<?> sb2 = serviceTarget.addService();
+        providedValue = sb2.provides(anotherServiceName);
+        sb2.setInstance(Service.newInstance(providedValue, anotherServiceName.toString()));
+
+        final List<ServiceController<?>> controllers = serviceTarget.installAll(Arrays.asList(sb1, sb2));
+        serviceContainer.awaitStability();
+
+        assertEquals(2, controllers.size());
+        assertSame(serviceContainer.getRequiredService(serviceName), controllers.get(0));
+        assertSame(serviceContainer.getRequiredService(anotherServiceName), controllers.get(1));
+        assertEquals(2, testListener.upValues().size());
+        try {
+            sb1.install();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {}
+    }
+
+    @Test
+    public void installAllWithDuplicate() throws Exception {
+        ServiceBuilder<?> sb = serviceTarget.addService();
+        Consumer<String> providedValue = sb.provides(extraServiceName);
+        sb.setInstance(Service.newInstance(providedValue, extraServiceName.toString()));
+        sb.install();
+
+        ServiceBuilder<?> sb1 = serviceTarget.addService();
+        providedValue = sb1.provides(serviceName);
+        sb1.setInstance(Service.newInstance(providedValue, serviceName.toString()));
+
+        ServiceBuilder<?> sb2 = serviceTarget.addService();
+        providedValue = sb2.provides(extraServiceName);
+        sb2.setInstance(Service.newInstance(providedValue, extraServiceName.toString()));
+
+        try {
+            serviceTarget.installAll(Arrays.asList(sb1, sb2));
+            fail("DuplicateServiceException expected");
+        } catch (DuplicateServiceException e) {}
+        serviceContainer.awaitStability();
+
+        // none of the batch was installed
+        assertNull(serviceContainer.getService(serviceName));
+        assertEquals(ServiceController.State.UP, serviceContainer.getRequiredService(extraServiceName).getState());
+    }
+
+    @Test
+    public void installAllWithCycle() throws Exception {
+        ServiceBuilder<?> sb1 = serviceTarget.addService();
+        Consumer<String> providedValue = sb1.provides(serviceName);
+        sb1.requires(anotherServiceName);
+        sb1.setInstance(Service.newInstance(providedValue, serviceName.toString()));
+
+        ServiceBuilder<?> sb2 = serviceTarget.addService();
+        providedValue = sb2.provides(anotherServiceName);
+        sb2.requires(serviceName);
+        sb2.setInstance(Service.newInstance(providedValue, anotherServiceName.toString()));
+
+        try {
+            serviceTarget.installAll(Arrays.asList(sb1, sb2));
+            fail("CircularDependencyException expected");
+        } catch (CircularDependencyException e) {
+            assertEquals(2, e.getCycle().length);
+        }
+        serviceContainer.awaitStability();
+
+        assertNull(serviceContainer.getService(serviceName));
+        assertNull(serviceContainer.getService(anotherServiceName));
+    }
 }
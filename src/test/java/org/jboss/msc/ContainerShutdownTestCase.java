@@ -28,15 +28,26 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import org.jboss.msc.service.LifecycleEvent;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceContainer;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
 import org.jboss.msc.service.ServiceContainer.TerminateListener;
 import org.jboss.msc.service.ServiceController.State;
 import org.junit.jupiter.api.BeforeEach;
@@ -335,6 +346,117 @@ public class ContainerShutdownTestCase extends AbstractServiceTest{
         }
     }
 
+    @Test
+    public void shutdownDuringInstallAll() throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        final Thread installer = Thread.currentThread();
+        final CountDownLatch down = new CountDownLatch(1);
+        final CountDownLatch failed = new CountDownLatch(1);
+        // the installer waits after committing the first service of the batch until the container goes down
+        final Executor executor = new Executor() {
+            public void execute(final Runnable command) {
+                pool.execute(command);
+                if (Thread.currentThread() == installer) {
+                    try {
+                        down.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        final ServiceContainer container = ServiceContainer.Factory.create("batch", executor, false);
+        final List<ServiceBuilder<?>> builders = new ArrayList<>();
+        final AtomicInteger stops = new AtomicInteger();
+        final AtomicInteger removals = new AtomicInteger();
+        final AtomicInteger removedBeforeStop = new AtomicInteger();
+        try {
+            for (int i = 0; i < 3; i++) {
+                final ServiceBuilder<?> sb = container.addService();
+                sb.provides(ServiceName.of("batch", Integer.toString(i)));
+                sb.setInstance(new Service() {
+                    public void start(final StartContext context) {
+                    }
+
+                    public void stop(final StopContext context) {
+                        // keep stopping until the batch failed to commit
+                        try {
+                            failed.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        stops.incrementAndGet();
+                    }
+                });
+                sb.addListener((controller, event) -> {
+                    if (event == LifecycleEvent.UP) {
+                        container.shutdown();
+                        down.countDown();
+                    } else if (event == LifecycleEvent.REMOVED) {
+                        if (stops.get() == 0) removedBeforeStop.incrementAndGet();
+                        removals.incrementAndGet();
+                    }
+                });
+                builders.add(sb);
+            }
+            try {
+                container.installAll(builders);
+                fail("IllegalStateException expected");
+            } catch (IllegalStateException expected) {
+            } finally {
+                failed.countDown();
+            }
+            container.awaitTermination(10, TimeUnit.SECONDS);
+            assertTrue(container.isShutdownComplete());
+            assertTrue(container.getServiceNames().isEmpty());
+            // the committed service is stopped and removed by the shutdown, the others are rolled back
+            assertEquals(1, stops.get());
+            assertEquals(builders.size(), removals.get());
+            assertEquals(2, removedBeforeStop.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownDuringConcurrentInstalls() throws Exception {
+        final ServiceContainer container = ServiceContainer.Factory.create("installs", false);
+        final int threads = 4;
+        final CountDownLatch installing = new CountDownLatch(threads);
+        final List<ServiceController<?>> installed = Collections.synchronizedList(new ArrayList<>());
+        final Thread[] installers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final String prefix = Integer.toString(i);
+            installers[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; ; j++) {
+                        final ServiceBuilder<?> sb = container.addService();
+                        sb.provides(ServiceName.of("installs", prefix, Integer.toString(j)));
+                        sb.setInstance(Service.NULL);
+                        installed.add(sb.install());
+                        if (j == 10) installing.countDown();
+                    }
+                } catch (IllegalStateException expected) {
+                    // the container is down
+                }
+            });
+            installers[i].start();
+        }
+        installing.await(10, TimeUnit.SECONDS);
+        container.shutdown();
+        container.awaitTermination(10, TimeUnit.SECONDS);
+        for (Thread installer : installers) {
+            installer.join(10000);
+            assertFalse(installer.isAlive());
+        }
+        assertTrue(container.isShutdownComplete());
+        // every installation which went ahead was seen and removed by the shutdown
+        for (ServiceController<?> controller : installed) {
+            assertSame(State.REMOVED, controller.getState());
+        }
+        assertTrue(container.getServiceNames().isEmpty());
+    }
+
     private static final class TestTerminateListener implements TerminateListener {
 
         private volatile CountDownLatch countDown = new CountDownLatch(1);
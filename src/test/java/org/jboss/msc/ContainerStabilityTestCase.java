@@ -22,6 +22,7 @@
 
 package org.jboss.msc;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -30,12 +31,18 @@ import org.jboss.msc.service.LifecycleListener;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StabilityMonitor;
+import org.jboss.msc.service.StabilityStatistics;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
@@ -172,4 +179,111 @@ public final class ContainerStabilityTestCase extends AbstractServiceTest {
         assertTrue(problem.isEmpty());
         assertTrue(failed.size() == 1);
     }
+
+    @Test
+    public void testStabilityStage() throws Exception {
+        final AtomicReference<StartContext> startContext = new AtomicReference<>();
+        ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.provides(ServiceName.of("async"));
+        sb.setInstance(new Service() {
+            @Override
+            public void start(StartContext context) {
+                context.asynchronous();
+                startContext.set(context);
+            }
+
+            @Override
+            public void stop(StopContext context) {
+            }
+        });
+        sb.install();
+
+        final CompletableFuture<Void> stability = serviceContainer.stability().toCompletableFuture();
+        while (startContext.get() == null) {
+            Thread.sleep(10L);
+        }
+        assertFalse(serviceContainer.isStable());
+        assertFalse(stability.isDone());
+        startContext.get().complete();
+        stability.get(10L, TimeUnit.SECONDS);
+        serviceContainer.awaitStability();
+        assertTrue(serviceContainer.isStable());
+        assertTrue(serviceContainer.stability().toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void testStabilityStageBlockingDependentAction() throws Exception {
+        final AtomicReference<StartContext> startContext = new AtomicReference<>();
+        ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.provides(ServiceName.of("async"));
+        sb.setInstance(new Service() {
+            @Override
+            public void start(StartContext context) {
+                context.asynchronous();
+                startContext.set(context);
+            }
+
+            @Override
+            public void stop(StopContext context) {
+            }
+        });
+        final ServiceController<?> controller = sb.install();
+
+        // a synchronous dependent action waiting for another thread locking the controller which made the container stable
+        final CompletableFuture<Boolean> unblocked = serviceContainer.stability().thenApply(ignored -> {
+            final CountDownLatch locked = new CountDownLatch(1);
+            new Thread(() -> {
+                controller.getStartException();
+                locked.countDown();
+            }).start();
+            try {
+                return locked.await(10L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }).toCompletableFuture();
+        while (startContext.get() == null) {
+            Thread.sleep(10L);
+        }
+        startContext.get().complete();
+        assertTrue(unblocked.get(20L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStabilityStageDuringShutdown() throws Exception {
+        final AtomicReference<StopContext> stopContext = new AtomicReference<>();
+        ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.provides(ServiceName.of("async"));
+        sb.setInstance(new Service() {
+            @Override
+            public void start(StartContext context) {
+            }
+
+            @Override
+            public void stop(StopContext context) {
+                context.asynchronous();
+                stopContext.set(context);
+            }
+        });
+        final ServiceController<?> controller = sb.install();
+        serviceContainer.awaitStability();
+        final StabilityMonitor monitor = new StabilityMonitor();
+        monitor.addController(controller);
+
+        serviceContainer.shutdown();
+        while (stopContext.get() == null) {
+            Thread.sleep(10L);
+        }
+        // the last service becomes stable once the container executor has been shut down
+        final CompletableFuture<Void> containerStage = serviceContainer.stability().toCompletableFuture();
+        final CompletableFuture<StabilityStatistics> monitorStage = monitor.stabilityFuture(null).toCompletableFuture();
+        assertFalse(containerStage.isDone());
+        assertFalse(monitorStage.isDone());
+        stopContext.get().complete();
+        containerStage.get(10L, TimeUnit.SECONDS);
+        monitorStage.get(10L, TimeUnit.SECONDS);
+        serviceContainer.awaitTermination(10L, TimeUnit.SECONDS);
+        assertTrue(serviceContainer.isShutdownComplete());
+    }
 }
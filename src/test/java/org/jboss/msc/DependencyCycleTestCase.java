@@ -25,15 +25,29 @@ package org.jboss.msc;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import org.jboss.msc.service.CircularDependencyException;
 import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
@@ -66,6 +80,7 @@ public class DependencyCycleTestCase extends AbstractServiceTest {
     private final ServiceName serviceUName = ServiceName.of("U");
     private final ServiceName serviceVName = ServiceName.of("V");
     private final ServiceName serviceWName = ServiceName.of("W");
+    private final ServiceName serviceXName = ServiceName.of("X");
     TestLifecycleListener testListener;
 
     @BeforeEach
@@ -311,6 +326,157 @@ public class DependencyCycleTestCase extends AbstractServiceTest {
         assertTrue(testListener.upValues().contains(serviceWName));
     }
 
+    @Test
+    public void deepChainInstalledDependentsFirst() throws Exception {
+        final int count = 10000;
+        ServiceController<?> last = null;
+        for (int i = 0; i < count; i++) {
+            final ServiceBuilder<?> sb = serviceContainer.addService();
+            final ServiceName name = ServiceName.of("chain", Integer.toString(i));
+            final Consumer<String> providedValue = sb.provides(name);
+            sb.setInstance(Service.newInstance(providedValue, name.toString()));
+            if (i < count - 1) {
+                sb.requires(ServiceName.of("chain", Integer.toString(i + 1)));
+            }
+            last = sb.install();
+        }
+        serviceContainer.awaitStability();
+        assertEquals(ServiceController.State.UP, last.getState());
+        assertEquals(ServiceController.State.UP, serviceContainer.getRequiredService(ServiceName.of("chain", "0")).getState());
+    }
+
+    @Test
+    public void cycleInShuffledGraph() throws Exception {
+        final int count = 200;
+        final Random random = new Random(4711);
+        final List<Integer> installOrder = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            installOrder.add(i);
+        }
+        Collections.shuffle(installOrder, random);
+        // node i requires node i - 1 and up to two other random nodes installed before it in topological order,
+        // node 0 requires X
+        for (int i : installOrder) {
+            final ServiceBuilder<?> sb = serviceContainer.addService();
+            final ServiceName name = ServiceName.of("graph", Integer.toString(i));
+            final Consumer<String> providedValue = sb.provides(name);
+            sb.setInstance(Service.newInstance(providedValue, name.toString()));
+            if (i == 0) {
+                sb.requires(serviceXName);
+            } else {
+                sb.requires(ServiceName.of("graph", Integer.toString(i - 1)));
+                for (int j = random.nextInt(3); j > 0; j--) {
+                    final int dependency = random.nextInt(i);
+                    if (dependency != i - 1) sb.requires(ServiceName.of("graph", Integer.toString(dependency)));
+                }
+            }
+            sb.install();
+        }
+        try {
+            final ServiceBuilder<?> sb = serviceContainer.addService();
+            final Consumer<String> providedValue = sb.provides(serviceXName);
+            sb.setInstance(Service.newInstance(providedValue, serviceXName.toString()));
+            sb.requires(ServiceName.of("graph", Integer.toString(count - 1)));
+            sb.install();
+            fail("CircularDependencyException expected");
+        } catch (CircularDependencyException e) {
+            assertEquals(serviceXName, e.getCycle()[0]);
+        }
+        serviceContainer.awaitStability();
+        assertEquals(count, testListener.downValues().size());
+    }
+
+    @Test
+    public void cycleThroughServiceBeingRemoved() throws Exception {
+        final ServiceContainer container = ServiceContainer.Factory.create("cycle", 1, 30L, TimeUnit.SECONDS, false);
+        try {
+            // A is down and linked to the missing B, it stays in REMOVING until its removal task ran on the only thread
+            ServiceBuilder<?> sb = container.addService();
+            sb.provides(serviceAName);
+            sb.requires(serviceBName);
+            sb.setInstance(Service.NULL);
+            sb.setInitialMode(ServiceController.Mode.NEVER);
+            final ServiceController<?> controllerA = sb.install();
+            container.awaitStability();
+
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final AtomicReference<ServiceController.State> removing = new AtomicReference<>();
+            sb = container.addService();
+            sb.provides(serviceCName);
+            sb.setInstance(new Service() {
+                @Override
+                public void start(StartContext context) {
+                    controllerA.setMode(ServiceController.Mode.REMOVE);
+                    removing.set(controllerA.getState());
+                    try {
+                        // B -> A -> B, A being removed
+                        final ServiceBuilder<?> sb = container.addService();
+                        sb.provides(serviceBName);
+                        sb.requires(serviceAName);
+                        sb.setInstance(Service.NULL);
+                        sb.install();
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+
+                @Override
+                public void stop(StopContext context) {
+                }
+            });
+            sb.install();
+            assertTrue(container.awaitStability(10L, TimeUnit.SECONDS));
+            assertEquals(ServiceController.State.REMOVED, removing.get());
+            assertNull(failure.get());
+            assertEquals(ServiceController.State.REMOVED, controllerA.getState());
+        } finally {
+            container.shutdown();
+            container.awaitTermination(10L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void cycleInstalledConcurrently() throws Exception {
+        final int size = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(size);
+        try {
+            for (int round = 0; round < 50; round++) {
+                final ServiceContainer container = ServiceContainer.Factory.create("cycle", false);
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<Boolean>> installations = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    final ServiceName name = ServiceName.of("ring", Integer.toString(i));
+                    final ServiceName dependency = ServiceName.of("ring", Integer.toString((i + 1) % size));
+                    installations.add(executor.submit(() -> {
+                        start.await();
+                        final ServiceBuilder<?> sb = container.addService();
+                        sb.provides(name);
+                        sb.requires(dependency);
+                        sb.setInstance(Service.NULL);
+                        sb.setInitialMode(ServiceController.Mode.NEVER);
+                        try {
+                            sb.install();
+                            return Boolean.FALSE;
+                        } catch (CircularDependencyException e) {
+                            return Boolean.TRUE;
+                        }
+                    }));
+                }
+                start.countDown();
+                int cycles = 0;
+                for (Future<Boolean> installation : installations) {
+                    if (installation.get()) cycles++;
+                }
+                // whichever installation completed the ring last must have seen it
+                assertTrue(cycles > 0);
+                container.shutdown();
+                container.awaitTermination();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private void assertCycle(CircularDependencyException e, ServiceName[]... cycles) {
         ServiceName[] actualCycle = e.getCycle();
         assertNotNull(actualCycle);
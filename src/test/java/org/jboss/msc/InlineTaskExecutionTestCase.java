@@ -0,0 +1,228 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.msc.service.LifecycleEvent;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceController.State;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the controller tasks a thread runs inline instead of handing them to the container executor.
+ * Tasks submitted to the executor are counted: every service start is submitted, the bookkeeping tasks
+ * of a cascade are submitted only past the inline limits.
+ */
+public class InlineTaskExecutionTestCase {
+
+    private final AtomicInteger submitted = new AtomicInteger();
+    private ExecutorService pool;
+    private ServiceContainer container;
+
+    private void createContainer(final int threads) {
+        pool = Executors.newFixedThreadPool(threads);
+        container = ServiceContainer.Factory.create("inline", task -> {
+            submitted.incrementAndGet();
+            pool.execute(task);
+        }, false);
+    }
+
+    @AfterEach
+    public void shutdownContainer() throws Exception {
+        if (container != null) {
+            container.shutdown();
+            container.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        if (pool != null) pool.shutdown();
+    }
+
+    @Test
+    public void deferredTasksRunOnceLocksAreReleased() throws Exception {
+        // a single thread runs all tasks, so every task it submits while holding a lock is deferred
+        createContainer(1);
+        final ServiceName root = ServiceName.of("root");
+        final ServiceName demanded = ServiceName.of("demanded");
+        final ServiceController<?> rootController = install(root, Mode.NEVER);
+        install(demanded, Mode.ON_DEMAND);
+        final List<ServiceController<?>> dependents = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // notified under the read lock of the root registration, they write lock the demanded one
+            dependents.add(install(ServiceName.of("dependent", Integer.toString(i)), Mode.ACTIVE, root, demanded));
+        }
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        rootController.setMode(Mode.ACTIVE);
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        for (ServiceController<?> dependent : dependents) {
+            assertSame(State.UP, dependent.getState());
+        }
+        rootController.setMode(Mode.REMOVE);
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        assertSame(State.REMOVED, rootController.getState());
+        for (ServiceController<?> dependent : dependents) {
+            assertSame(State.DOWN, dependent.getState());
+        }
+    }
+
+    @Test
+    public void deferredTasksAreLimited() throws Exception {
+        createContainer(1);
+        // each dependent queues two tasks when the root comes up, up to 64 tasks are deferred
+        final int small = extraTasksOnFanOut("small", 16);
+        assertEquals(small, extraTasksOnFanOut("medium", 32));
+        final int large = extraTasksOnFanOut("large", 200);
+        assertTrue(large - small >= 2 * 200 - 64, "Expected the tasks past the limit on the executor, got " + (large - small));
+    }
+
+    @Test
+    public void inlineTasksAreLimited() throws Exception {
+        createContainer(1);
+        // a thread runs up to 256 queued tasks inline after a task it took from the executor
+        final int shortChain = extraTasksOnDemand("short", 100);
+        assertEquals(shortChain, extraTasksOnDemand("medium", 255));
+        final int longChain = extraTasksOnDemand("long", 1000);
+        assertTrue(longChain - shortChain >= 1000 / 256 - 1, "Expected the tasks past the limit on the executor, got " + (longChain - shortChain));
+    }
+
+    @Test
+    public void blockingListenerDoesNotStallQueuedTasks() throws Exception {
+        createContainer(2);
+        // each listener waits for the other one, which is queued behind it when the service comes up
+        final CountDownLatch notified = new CountDownLatch(2);
+        final AtomicInteger unblocked = new AtomicInteger();
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(ServiceName.of("service"));
+        sb.setInstance(Service.NULL);
+        for (int i = 0; i < 2; i++) {
+            sb.addListener((controller, event) -> {
+                if (event != LifecycleEvent.UP) return;
+                notified.countDown();
+                if (await(notified)) unblocked.incrementAndGet();
+            });
+        }
+        sb.install();
+        assertTrue(container.awaitStability(20, TimeUnit.SECONDS));
+        assertEquals(2, unblocked.get());
+    }
+
+    @Test
+    public void blockingStartDoesNotStallTasksItCauses() throws Exception {
+        createContainer(2);
+        // the start waits for another service it installs, whose tasks must not be queued behind it
+        final CountDownLatch otherUp = new CountDownLatch(1);
+        final AtomicBoolean unblocked = new AtomicBoolean();
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(ServiceName.of("starting"));
+        sb.setInstance(new Service() {
+            public void start(final StartContext context) {
+                final ServiceBuilder<?> other = container.addService();
+                other.provides(ServiceName.of("other"));
+                other.setInstance(Service.NULL);
+                other.addListener((controller, event) -> {
+                    if (event == LifecycleEvent.UP) otherUp.countDown();
+                });
+                other.install();
+                unblocked.set(await(otherUp));
+            }
+
+            public void stop(final StopContext context) {
+            }
+        });
+        sb.install();
+        assertTrue(container.awaitStability(20, TimeUnit.SECONDS));
+        assertTrue(unblocked.get());
+    }
+
+    /**
+     * Start {@code count} passive dependents of a root service.
+     *
+     * @return the number of tasks submitted to the executor besides the starts of the dependents
+     */
+    private int extraTasksOnFanOut(final String prefix, final int count) throws Exception {
+        final ServiceName root = ServiceName.of(prefix, "root");
+        final ServiceController<?> rootController = install(root, Mode.NEVER);
+        for (int i = 0; i < count; i++) {
+            install(ServiceName.of(prefix, Integer.toString(i)), Mode.PASSIVE, root);
+        }
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        submitted.set(0);
+        rootController.setMode(Mode.ACTIVE);
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        return submitted.get() - count;
+    }
+
+    /**
+     * Demand a chain of {@code length} on demand services from its top.
+     *
+     * @return the number of tasks submitted to the executor besides the starts of the chain
+     */
+    private int extraTasksOnDemand(final String prefix, final int length) throws Exception {
+        ServiceController<?> top = install(ServiceName.of(prefix, "0"), Mode.ON_DEMAND);
+        for (int i = 1; i < length; i++) {
+            top = install(ServiceName.of(prefix, Integer.toString(i)), Mode.ON_DEMAND, ServiceName.of(prefix, Integer.toString(i - 1)));
+        }
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        submitted.set(0);
+        top.setMode(Mode.ACTIVE);
+        assertTrue(container.awaitStability(10, TimeUnit.SECONDS));
+        return submitted.get() - length;
+    }
+
+    private ServiceController<?> install(final ServiceName name, final Mode mode, final ServiceName... dependencies) {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(name);
+        for (ServiceName dependency : dependencies) {
+            sb.requires(dependency);
+        }
+        sb.setInstance(Service.NULL);
+        sb.setInitialMode(mode);
+        return sb.install();
+    }
+
+    private static boolean await(final CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
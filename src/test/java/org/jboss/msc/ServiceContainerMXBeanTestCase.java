@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceTiming;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.service.management.ServiceContainerMXBean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the statistics exposed by {@link ServiceContainerMXBean}.
+ */
+public class ServiceContainerMXBeanTestCase extends AbstractServiceTest {
+
+    private ObjectName getContainerObjectName() throws Exception {
+        final Hashtable<String, String> properties = new Hashtable<>();
+        properties.put("type", "container");
+        properties.put("name", serviceContainer.getName());
+        return new ObjectName("jboss.msc", properties);
+    }
+
+    private static CompositeData find(final CompositeData[] statistics, final String transition) {
+        for (CompositeData s : statistics) {
+            if (s.get("transition").equals(transition)) return s;
+        }
+        return null;
+    }
+
+    @Test
+    public void transitionStatistics() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            final ServiceBuilder<?> sb = serviceContainer.addService();
+            sb.provides(ServiceName.of("service", Integer.toString(i)));
+            sb.setInstance(Service.NULL);
+            sb.install();
+        }
+        serviceContainer.awaitStability();
+        serviceContainer.getService(ServiceName.of("service", "0")).setMode(Mode.REMOVE);
+        serviceContainer.awaitStability();
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName containerName = getContainerObjectName();
+        final CompositeData[] statistics = (CompositeData[]) server.getAttribute(containerName, "TransitionStatistics");
+        final CompositeData up = find(statistics, "STARTING_to_UP");
+        assertNotNull(up);
+        assertEquals(10L, up.get("count"));
+        long histogramCount = 0;
+        for (long count : (long[]) up.get("histogram")) {
+            histogramCount += count;
+        }
+        assertEquals(10L, histogramCount);
+        assertTrue((Long) up.get("maxTime") <= (Long) up.get("totalTime"));
+        final CompositeData removed = find(statistics, "REMOVING_to_REMOVED");
+        assertNotNull(removed);
+        assertEquals(1L, removed.get("count"));
+        final String dump = (String) server.invoke(containerName, "dumpTransitionStatisticsToString", null, null);
+        assertTrue(dump.contains("STARTING_to_UP"));
+    }
+
+    @Test
+    public void slowestStarts() throws Exception {
+        final ServiceName slowName = ServiceName.of("slow");
+        final ServiceBuilder<?> slow = serviceContainer.addService();
+        slow.provides(slowName);
+        slow.setInstance(new Service() {
+            @Override
+            public void start(final StartContext context) {
+                try {
+                    Thread.sleep(50L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void stop(final StopContext context) {
+            }
+        });
+        slow.install();
+        for (int i = 0; i < 5; i++) {
+            final ServiceBuilder<?> sb = serviceContainer.addService();
+            sb.provides(ServiceName.of("fast", Integer.toString(i)));
+            sb.setInstance(Service.NULL);
+            sb.install();
+        }
+        serviceContainer.awaitStability();
+
+        final List<ServiceTiming> starts = serviceContainer.getSlowestStarts(3);
+        assertEquals(3, starts.size());
+        assertTrue(starts.get(0).getServiceNames().contains(slowName));
+        assertTrue(starts.get(0).getTime(TimeUnit.MILLISECONDS) >= 50L);
+        assertTrue(starts.get(1).getTime(TimeUnit.NANOSECONDS) >= starts.get(2).getTime(TimeUnit.NANOSECONDS));
+        assertTrue(serviceContainer.getSlowestStops(3).isEmpty());
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName containerName = getContainerObjectName();
+        final CompositeData[] statuses = (CompositeData[]) server.invoke(containerName, "querySlowestStarts", new Object[] { 1 }, new String[] { "int" });
+        assertEquals(1, statuses.length);
+        assertEquals(slowName.getCanonicalName(), ((String[]) statuses[0].get("providedValues"))[0]);
+        final String dump = (String) server.invoke(containerName, "dumpSlowestStartsToString", new Object[] { 1 }, new String[] { "int" });
+        assertTrue(dump.contains(slowName.getCanonicalName()));
+    }
+
+    @Test
+    public void lifecycleTrace() throws Exception {
+        final ServiceContainer container;
+        System.setProperty("jboss.msc.lifecycle.trace", "true");
+        try {
+            container = ServiceContainer.Factory.create("traced", false);
+        } finally {
+            System.clearProperty("jboss.msc.lifecycle.trace");
+        }
+        try {
+            final ServiceBuilder<?> sb = container.addService();
+            sb.provides(ServiceName.of("traced", "service"));
+            sb.setInstance(Service.NULL);
+            sb.install();
+            container.awaitStability();
+            final Hashtable<String, String> properties = new Hashtable<>();
+            properties.put("type", "container");
+            properties.put("name", container.getName());
+            final String json = (String) ManagementFactory.getPlatformMBeanServer().invoke(new ObjectName("jboss.msc", properties),
+                    "dumpLifecycleTraceToString", null, null);
+            assertTrue(json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+            assertTrue(json.contains("\"name\":\"traced.service\",\"cat\":\"start\",\"ph\":\"X\""));
+            assertTrue(json.contains("\"name\":\"thread_name\""));
+        } finally {
+            container.shutdown();
+            container.awaitTermination();
+        }
+    }
+}
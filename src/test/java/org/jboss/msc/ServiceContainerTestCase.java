@@ -22,10 +22,27 @@
 
 package org.jboss.msc;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceTiming;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartProfile;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.service.TaskSchedulingPolicy;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 public final class ServiceContainerTestCase extends ServiceContainerTestBase {
@@ -102,4 +119,135 @@ public final class ServiceContainerTestCase extends ServiceContainerTestBase {
         assertStoppedContainerInvariants(container);
     }
 
+    @Test
+    public void test9() throws Exception {
+        final ExecutorService executor = new ForkJoinPool(2);
+        try {
+            ServiceContainer container = ServiceContainer.Factory.create("Foo", executor, false);
+            assertStartedContainerInvariants(container);
+            final ServiceName serviceName = ServiceName.of("foo");
+            final ServiceBuilder<?> sb = container.addService();
+            sb.provides(serviceName);
+            sb.setInstance(Service.NULL);
+            sb.install();
+            container.awaitStability();
+            assertEquals(ServiceController.State.UP, container.getRequiredService(serviceName).getState());
+            container.shutdown();
+            container.awaitTermination();
+            assertStoppedContainerInvariants(container);
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test10() {
+        try {
+            ServiceContainer.Factory.create("Foo", null, false);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void test11() throws Exception {
+        for (TaskSchedulingPolicy policy : TaskSchedulingPolicy.values()) {
+            assertSchedulingPolicy(ServiceContainer.Factory.create("Foo", 1, 60L, TimeUnit.MILLISECONDS, false, policy));
+            final ExecutorService executor = new ForkJoinPool(2);
+            try {
+                assertSchedulingPolicy(ServiceContainer.Factory.create("Foo", executor, false, policy));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private void assertSchedulingPolicy(final ServiceContainer container) throws Exception {
+        assertStartedContainerInvariants(container);
+        final List<ServiceController<?>> controllers = new ArrayList<>();
+        final TestLifecycleListener listener = new TestLifecycleListener();
+        ServiceName dependency = null;
+        for (int i = 0; i < 50; i++) {
+            final ServiceName name = ServiceName.of("chain", String.valueOf(i));
+            final ServiceBuilder<?> sb = container.addService();
+            sb.provides(name);
+            if (dependency != null) sb.requires(dependency);
+            sb.setInstance(Service.NULL);
+            sb.addListener(listener);
+            controllers.add(sb.install());
+            dependency = name;
+        }
+        container.awaitStability();
+        for (ServiceController<?> controller : controllers) {
+            assertEquals(ServiceController.State.UP, controller.getState());
+        }
+        assertEquals(50, listener.upValues().size());
+        container.shutdown();
+        container.awaitTermination();
+        assertStoppedContainerInvariants(container);
+    }
+
+    @Test
+    public void test12() {
+        try {
+            ServiceContainer.Factory.create("Foo", ForkJoinPool.commonPool(), false, null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStartProfile() throws Exception {
+        ServiceContainer container = ServiceContainer.Factory.create("Foo", false);
+        try {
+            final ServiceName a = ServiceName.of("a"), b = ServiceName.of("b"), c = ServiceName.of("c");
+            installSleepingService(container, a, null, 20L);
+            installSleepingService(container, b, a, 20L);
+            installSleepingService(container, c, b, 20L);
+            installSleepingService(container, ServiceName.of("d"), null, 5L);
+            container.awaitStability();
+            final StartProfile profile = container.getStartProfile();
+            final List<ServiceTiming> criticalPath = profile.getCriticalPath();
+            assertEquals(3, criticalPath.size());
+            assertTrue(criticalPath.get(0).getServiceNames().contains(a));
+            assertTrue(criticalPath.get(1).getServiceNames().contains(b));
+            assertTrue(criticalPath.get(2).getServiceNames().contains(c));
+            assertTrue(profile.getCriticalPathTime(TimeUnit.MILLISECONDS) >= 60L);
+            assertTrue(profile.getTime(TimeUnit.NANOSECONDS) >= profile.getCriticalPathTime(TimeUnit.NANOSECONDS));
+            assertTrue(profile.getMaxParallelism() >= 1);
+            int max = 0;
+            for (int parallelism : profile.getParallelism(1L, TimeUnit.MILLISECONDS)) {
+                max = Math.max(max, parallelism);
+            }
+            assertEquals(profile.getMaxParallelism(), max);
+        } finally {
+            container.shutdown();
+            container.awaitTermination();
+        }
+    }
+
+    private static void installSleepingService(final ServiceContainer container, final ServiceName name, final ServiceName dependency, final long millis) {
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(name);
+        if (dependency != null) sb.requires(dependency);
+        sb.setInstance(new Service() {
+            @Override
+            public void start(final StartContext context) {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void stop(final StopContext context) {
+            }
+        });
+        sb.install();
+    }
+
 }
@@ -23,8 +23,24 @@
 package org.jboss.msc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
-
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import org.jboss.msc.service.ServiceBuilder;
@@ -278,6 +294,194 @@ public class ServiceControllerTestCase extends AbstractServiceTest {
         assertSame(State.DOWN, serviceController.getState());
     }
 
+    @Test
+    public void testMissingDependencies() throws Exception {
+        final ServiceName serviceOne = ServiceName.of("serviceOne");
+        final ServiceName serviceTwo = ServiceName.of("serviceTwo");
+        final ServiceName serviceThree = ServiceName.of("serviceThree");
+        ServiceBuilder<?> sb = serviceContainer.addService();
+        Consumer<String> providedValue = sb.provides(serviceOne);
+        sb.setInstance(Service.newInstance(providedValue, "serviceOne"));
+        sb.requires(serviceTwo);
+        sb.requires(serviceThree);
+        final ServiceController<?> serviceController = sb.install();
+
+        serviceContainer.awaitStability();
+        assertEquals(new HashSet<>(Arrays.asList(serviceTwo, serviceThree)), new HashSet<>(serviceController.missing()));
+
+        sb = serviceContainer.addService();
+        providedValue = sb.provides(serviceTwo);
+        sb.setInstance(Service.newInstance(providedValue, "serviceTwo"));
+        final ServiceController<?> serviceTwoController = sb.install();
+
+        serviceContainer.awaitStability();
+        assertEquals(Collections.singleton(serviceThree), new HashSet<>(serviceController.missing()));
+
+        serviceTwoController.setMode(Mode.REMOVE);
+        serviceContainer.awaitStability();
+        assertEquals(new HashSet<>(Arrays.asList(serviceTwo, serviceThree)), new HashSet<>(serviceController.missing()));
+    }
+
+    @Test
+    public void testManyDependents() throws Exception {
+        final ServiceName core = ServiceName.of("core");
+        final List<ServiceController<?>> dependents = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final ServiceBuilder<?> sb = serviceContainer.addService();
+            final ServiceName name = ServiceName.of("dependent", Integer.toString(i));
+            final Consumer<String> providedValue = sb.provides(name);
+            sb.setInstance(Service.newInstance(providedValue, name.toString()));
+            sb.requires(core);
+            dependents.add(sb.install());
+        }
+        final ServiceBuilder<?> sb = serviceContainer.addService();
+        final Consumer<String> providedValue = sb.provides(core);
+        sb.setInstance(Service.newInstance(providedValue, "core"));
+        final ServiceController<?> coreController = sb.install();
+
+        serviceContainer.awaitStability();
+        for (ServiceController<?> dependent : dependents) {
+            assertSame(State.UP, dependent.getState());
+        }
+
+        coreController.setMode(Mode.NEVER);
+        serviceContainer.awaitStability();
+        for (ServiceController<?> dependent : dependents) {
+            assertSame(State.DOWN, dependent.getState());
+        }
+
+        coreController.setMode(Mode.REMOVE);
+        serviceContainer.awaitStability();
+        for (ServiceController<?> dependent : dependents) {
+            assertEquals(Collections.singleton(core), dependent.missing());
+        }
+    }
+
+    @Test
+    public void testValueFuture() throws Exception {
+        final ServiceController<String> upController = serviceContainer.addService(ServiceName.of("up"), new ValueService("up", false))
+                .setInitialMode(Mode.NEVER).install();
+        final ServiceController<String> failedController = serviceContainer.addService(ServiceName.of("failed"), new ValueService("failed", true))
+                .setInitialMode(Mode.NEVER).install();
+        final ServiceController<String> removedController = serviceContainer.addService(ServiceName.of("removed"), new ValueService("removed", false))
+                .setInitialMode(Mode.NEVER).install();
+        serviceContainer.awaitStability();
+
+        final CompletableFuture<String> upValue = upController.valueFuture().toCompletableFuture();
+        final CompletableFuture<String> failedValue = failedController.valueFuture().toCompletableFuture();
+        final CompletableFuture<String> removedValue = removedController.valueFuture().toCompletableFuture();
+        assertFalse(upValue.isDone());
+        assertFalse(failedValue.isDone());
+        assertFalse(removedValue.isDone());
+
+        upController.setMode(Mode.ACTIVE);
+        failedController.setMode(Mode.ACTIVE);
+        removedController.setMode(Mode.REMOVE);
+        serviceContainer.awaitStability();
+
+        assertEquals("up", upValue.get(10, TimeUnit.SECONDS));
+        assertEquals("up", upController.valueFuture().toCompletableFuture().getNow(null));
+        try {
+            failedValue.get(10, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(e.getCause().getCause() instanceof StartException);
+        }
+        try {
+            removedValue.get(10, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(removedController.valueFuture().toCompletableFuture().isCompletedExceptionally());
+
+        final ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.setInstance(Service.NULL);
+        final ServiceController<?> newApiController = sb.install();
+        try {
+            newApiController.valueFuture();
+            fail("UnsupportedOperationException expected");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testValueFutureDuringRemoval() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final ServiceContainer container = ServiceContainer.Factory.create("removal", executor, false);
+        try {
+            final ServiceController<String> controller = container.addService(ServiceName.of("removed"), new ValueService("removed", false))
+                    .setInitialMode(Mode.NEVER).install();
+            container.awaitStability();
+            final AtomicReference<State> completedIn = new AtomicReference<>();
+            final CompletableFuture<String> requestedBefore = controller.valueFuture().toCompletableFuture()
+                    .whenComplete((value, failure) -> completedIn.set(controller.getState()));
+            // hold the removal in REMOVING
+            final CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            final CompletableFuture<String> requestedDuring;
+            try {
+                controller.setMode(Mode.REMOVE);
+                assertSame(State.REMOVED, controller.getState());
+                requestedDuring = controller.valueFuture().toCompletableFuture();
+                // like awaitValue(), the futures wait for the service to be removed
+                assertFalse(requestedBefore.isDone());
+                assertFalse(requestedDuring.isDone());
+                try {
+                    controller.awaitValue(10, TimeUnit.MILLISECONDS);
+                    fail("TimeoutException expected");
+                } catch (TimeoutException expected) {
+                }
+            } finally {
+                release.countDown();
+            }
+            for (CompletableFuture<String> future : Arrays.asList(requestedBefore, requestedDuring)) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                    fail("ExecutionException expected");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+            assertSame(State.REMOVED, completedIn.get());
+        } finally {
+            container.shutdown();
+            container.awaitTermination(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+    }
+
+    private static final class ValueService implements org.jboss.msc.service.Service<String> {
+        private final String value;
+        private final boolean fail;
+
+        ValueService(final String value, final boolean fail) {
+            this.value = value;
+            this.fail = fail;
+        }
+
+        @Override
+        public void start(StartContext context) throws StartException {
+            if (fail) throw new StartException(value);
+        }
+
+        @Override
+        public void stop(StopContext context) {
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+    }
+
     private static void assertState(final ServiceContainer serviceContainer, final ServiceName serviceName, final ServiceController.State state) {
         assertEquals(state, serviceContainer.getService(serviceName).getState());
     }
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StabilityMonitor;
+import org.jboss.msc.service.StabilityStatistics;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the statistics reported by {@link StabilityMonitor}.
+ */
+public class StabilityMonitorTestCase extends AbstractServiceTest {
+
+    private ServiceController<?> install(final StabilityMonitor monitor, final String name, final Mode mode) {
+        final ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.provides(ServiceName.of(name));
+        sb.setInstance(Service.NULL);
+        sb.setInitialMode(mode);
+        sb.addMonitor(monitor);
+        return sb.install();
+    }
+
+    private static StabilityStatistics awaitStatistics(final StabilityMonitor monitor) throws InterruptedException {
+        final StabilityStatistics statistics = new StabilityStatistics();
+        monitor.awaitStability(statistics);
+        return statistics;
+    }
+
+    private static void assertStatistics(final StabilityStatistics statistics, final int active, final int passive, final int onDemand, final int lazy, final int never, final int started) {
+        assertEquals(active, statistics.getActiveCount());
+        assertEquals(passive, statistics.getPassiveCount());
+        assertEquals(onDemand, statistics.getOnDemandCount());
+        assertEquals(lazy, statistics.getLazyCount());
+        assertEquals(never, statistics.getNeverCount());
+        assertEquals(started, statistics.getStartedCount());
+    }
+
+    @Test
+    public void statistics() throws Exception {
+        final StabilityMonitor monitor = new StabilityMonitor();
+        final ServiceController<?> active = install(monitor, "active", Mode.ACTIVE);
+        install(monitor, "active2", Mode.ACTIVE);
+        install(monitor, "passive", Mode.PASSIVE);
+        install(monitor, "onDemand", Mode.ON_DEMAND);
+        install(monitor, "lazy", Mode.LAZY);
+        final ServiceController<?> never = install(monitor, "never", Mode.NEVER);
+        assertStatistics(awaitStatistics(monitor), 2, 1, 1, 1, 1, 3);
+
+        active.setMode(Mode.NEVER);
+        assertStatistics(awaitStatistics(monitor), 1, 1, 1, 1, 2, 2);
+
+        never.setMode(Mode.REMOVE);
+        assertStatistics(awaitStatistics(monitor), 1, 1, 1, 1, 1, 2);
+
+        final StabilityMonitor other = new StabilityMonitor();
+        other.addController(active);
+        assertStatistics(awaitStatistics(other), 0, 0, 0, 0, 1, 0);
+        active.setMode(Mode.ACTIVE);
+        assertStatistics(awaitStatistics(other), 1, 0, 0, 0, 0, 1);
+        other.removeController(active);
+        assertStatistics(awaitStatistics(other), 0, 0, 0, 0, 0, 0);
+
+        monitor.clear();
+        assertStatistics(awaitStatistics(monitor), 0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void stabilityFuture() throws Exception {
+        final StabilityMonitor monitor = new StabilityMonitor();
+        final AtomicReference<StartContext> startContext = new AtomicReference<>();
+        final ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.provides(ServiceName.of("async"));
+        sb.setInstance(new Service() {
+            @Override
+            public void start(final StartContext context) {
+                context.asynchronous();
+                startContext.set(context);
+            }
+
+            @Override
+            public void stop(final StopContext context) {
+            }
+        });
+        sb.addMonitor(monitor);
+        sb.install();
+
+        final StabilityStatistics statistics = new StabilityStatistics();
+        final CompletableFuture<StabilityStatistics> stability = monitor.stabilityFuture(statistics).toCompletableFuture();
+        while (startContext.get() == null) {
+            Thread.sleep(10L);
+        }
+        assertFalse(monitor.isStable());
+        assertFalse(stability.isDone());
+        startContext.get().complete();
+        assertSame(statistics, stability.get(10L, TimeUnit.SECONDS));
+        assertTrue(monitor.isStable());
+        assertStatistics(statistics, 1, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    public void stabilityFutureBlockingDependentAction() throws Exception {
+        final StabilityMonitor monitor = new StabilityMonitor();
+        final AtomicReference<StartContext> startContext = new AtomicReference<>();
+        final ServiceBuilder<?> sb = serviceContainer.addService();
+        sb.provides(ServiceName.of("async"));
+        sb.setInstance(new Service() {
+            @Override
+            public void start(final StartContext context) {
+                context.asynchronous();
+                startContext.set(context);
+            }
+
+            @Override
+            public void stop(final StopContext context) {
+            }
+        });
+        sb.addMonitor(monitor);
+        final ServiceController<?> controller = sb.install();
+
+        // a synchronous dependent action waiting for another thread locking the controller which made the monitor stable
+        final CompletableFuture<Boolean> unblocked = monitor.stabilityFuture(null).thenApply(ignored -> {
+            final CountDownLatch locked = new CountDownLatch(1);
+            new Thread(() -> {
+                controller.getStartException();
+                locked.countDown();
+            }).start();
+            try {
+                return locked.await(10L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }).toCompletableFuture();
+        while (startContext.get() == null) {
+            Thread.sleep(10L);
+        }
+        startContext.get().complete();
+        assertTrue(unblocked.get(20L, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.condition.JRE.JAVA_21;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.msc.service.LifecycleEvent;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceController.State;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+
+/**
+ * Test service lifecycles running on virtual threads, enabled by the {@code jboss.msc.virtual.threads} system property.
+ */
+public class VirtualThreadsTestCase {
+
+    @Test
+    @EnabledForJreRange(min = JAVA_21)
+    public void lifecycleRunsOnVirtualThreads() throws Exception {
+        final ServiceContainer container;
+        System.setProperty("jboss.msc.virtual.threads", "true");
+        try {
+            container = ServiceContainer.Factory.create("virtual", false);
+        } finally {
+            System.clearProperty("jboss.msc.virtual.threads");
+        }
+        try {
+            final Map<String, Thread> threads = new ConcurrentHashMap<>();
+            final ServiceBuilder<?> sb = container.addService();
+            sb.provides(ServiceName.of("virtual"));
+            sb.setInstance(new Service() {
+                @Override
+                public void start(final StartContext context) {
+                    threads.put("start", Thread.currentThread());
+                    context.asynchronous();
+                    context.execute(new Runnable() {
+                        public void run() {
+                            threads.put("execute", Thread.currentThread());
+                            context.complete();
+                        }
+                    });
+                }
+
+                @Override
+                public void stop(final StopContext context) {
+                    threads.put("stop", Thread.currentThread());
+                }
+            });
+            sb.addListener((controller, event) -> threads.put(event.name(), Thread.currentThread()));
+            final ServiceController<?> controller = sb.install();
+            container.awaitStability();
+            assertEquals(State.UP, controller.getState());
+            controller.setMode(Mode.REMOVE);
+            container.awaitStability();
+
+            assertTrue(isVirtual(threads.get("start")));
+            assertTrue(isVirtual(threads.get("execute")));
+            assertTrue(isVirtual(threads.get("stop")));
+            // the listener notifications are bookkeeping tasks
+            for (LifecycleEvent event : new LifecycleEvent[] { LifecycleEvent.UP, LifecycleEvent.DOWN, LifecycleEvent.REMOVED }) {
+                final Thread thread = threads.get(event.name());
+                assertFalse(isVirtual(thread));
+                assertTrue(thread.getName().startsWith("MSC service thread"), thread.getName());
+            }
+        } finally {
+            container.shutdown();
+            container.awaitTermination();
+        }
+    }
+
+    private static boolean isVirtual(final Thread thread) throws Exception {
+        // the tests are compiled for Java 11
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}
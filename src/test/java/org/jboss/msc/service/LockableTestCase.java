@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Lockable}.
+ */
+public class LockableTestCase {
+
+    @Test
+    public void readLocksAreShared() {
+        final Lockable lockable = new Lockable();
+        lockable.acquireRead();
+        lockable.acquireRead();
+        assertFalse(lockable.isWriteLocked());
+        lockable.releaseRead();
+        lockable.releaseRead();
+        lockable.acquireWrite();
+        try {
+            assertTrue(lockable.isWriteLocked());
+        } finally {
+            lockable.releaseWrite();
+        }
+        assertFalse(lockable.isWriteLocked());
+    }
+
+    @Test
+    public void waitingWriterBlocksNewReaders() throws Exception {
+        final Lockable lockable = new Lockable();
+        lockable.acquireRead();
+        final CountDownLatch writeLocked = new CountDownLatch(1);
+        final CountDownLatch readLocked = new CountDownLatch(1);
+        final Thread writer = new Thread(() -> {
+            lockable.acquireWrite();
+            try {
+                writeLocked.countDown();
+            } finally {
+                lockable.releaseWrite();
+            }
+        });
+        writer.start();
+        awaitWaiting(writer);
+        final Thread reader = new Thread(() -> {
+            lockable.acquireRead();
+            readLocked.countDown();
+            lockable.releaseRead();
+        });
+        reader.start();
+        awaitWaiting(reader);
+        // both wait until the first read lock is released, then the writer goes first
+        assertFalse(writeLocked.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, readLocked.getCount());
+        lockable.releaseRead();
+        assertTrue(writeLocked.await(10, TimeUnit.SECONDS));
+        assertTrue(readLocked.await(10, TimeUnit.SECONDS));
+        writer.join();
+        reader.join();
+    }
+
+    @Test
+    public void readersAndWritersExcludeEachOther() throws Exception {
+        final Lockable lockable = new Lockable();
+        final AtomicInteger readers = new AtomicInteger();
+        final AtomicBoolean writing = new AtomicBoolean();
+        final AtomicInteger violations = new AtomicInteger();
+        final int iterations = 20000;
+        final Thread[] threads = new Thread[6];
+        for (int i = 0; i < threads.length; i++) {
+            final boolean write = i % 3 == 0;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    if (write) {
+                        lockable.acquireWrite();
+                        try {
+                            if (readers.get() != 0 || !writing.compareAndSet(false, true)) violations.incrementAndGet();
+                            writing.set(false);
+                        } finally {
+                            lockable.releaseWrite();
+                        }
+                    } else {
+                        lockable.acquireRead();
+                        try {
+                            readers.incrementAndGet();
+                            if (writing.get()) violations.incrementAndGet();
+                            readers.decrementAndGet();
+                        } finally {
+                            lockable.releaseRead();
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        assertEquals(0, violations.get());
+        assertFalse(lockable.isWriteLocked());
+    }
+
+    private static void awaitWaiting(final Thread thread) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING) {
+            if (System.nanoTime() - deadline > 0) fail(thread + " is not waiting");
+            Thread.sleep(10);
+        }
+    }
+
+}
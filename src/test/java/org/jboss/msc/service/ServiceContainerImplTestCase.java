@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for how {@link ServiceContainerImpl} shuts down.
+ */
+public class ServiceContainerImplTestCase {
+
+    @Test
+    public void interruptedShutdownWaitsForInstallations() throws Exception {
+        final ServiceContainerImpl container = new ServiceContainerImpl("interrupted", 2, 30L, TimeUnit.SECONDS, false, TaskSchedulingPolicy.FIFO);
+        container.registerMBeanCleaner();
+        // an installation which did not see the container going down
+        final int stripe = container.enterInstallation();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final Thread shutdown = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            container.shutdown();
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        try {
+            shutdown.start();
+            // an interrupted thread must wait rather than spin
+            awaitState(shutdown, Thread.State.WAITING);
+            assertTrue(container.isShutdown());
+        } finally {
+            container.exitInstallation(stripe);
+        }
+        shutdown.join(10000);
+        assertFalse(shutdown.isAlive());
+        // the interrupt is restored once the installations drained
+        assertTrue(interrupted.get());
+        container.awaitTermination(10L, TimeUnit.SECONDS);
+        assertTrue(container.isShutdownComplete());
+    }
+
+    @Test
+    public void stabilityNotificationAfterPoolShutdown() throws Exception {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), ServiceContainerImpl.POLICY);
+        pool.shutdown();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        // the pool rejects the notification rather than discarding it, so it completes the future itself
+        new StabilityNotification<>(Collections.singletonMap(future, (Void) null)).execute(pool);
+        assertTrue(future.isDone());
+        assertTrue(pool.awaitTermination(10L, TimeUnit.SECONDS));
+    }
+
+    private static void awaitState(final Thread thread, final Thread.State state) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (thread.getState() != state) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("Thread is " + thread.getState() + ", expected " + state);
+            }
+            Thread.sleep(10L);
+        }
+    }
+}
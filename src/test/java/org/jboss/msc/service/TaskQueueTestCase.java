@@ -0,0 +1,214 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.msc.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.msc.Service;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link TaskQueue}, the order the container executor runs queued tasks in.
+ */
+public class TaskQueueTestCase {
+
+    @Test
+    public void fifoRunsTasksInSubmissionOrder() throws Exception {
+        assertEquals(Arrays.asList("lifecycle1", "bookkeeping1", "notification1", "lifecycle2", "bookkeeping2", "notification2"),
+                runOrder(TaskSchedulingPolicy.FIFO));
+    }
+
+    @Test
+    public void lifoRunsLatestTaskFirst() throws Exception {
+        assertEquals(Arrays.asList("notification2", "bookkeeping2", "lifecycle2", "notification1", "bookkeeping1", "lifecycle1"),
+                runOrder(TaskSchedulingPolicy.LIFO));
+    }
+
+    @Test
+    public void priorityRunsLifecycleThenBookkeepingThenNotificationTasks() throws Exception {
+        assertEquals(Arrays.asList("lifecycle1", "lifecycle2", "bookkeeping1", "bookkeeping2", "notification1", "notification2"),
+                runOrder(TaskSchedulingPolicy.PRIORITY));
+    }
+
+    @Test
+    public void rejectedTasksRunOnSubmittingThread() throws Exception {
+        for (TaskSchedulingPolicy policy : new TaskSchedulingPolicy[] { TaskSchedulingPolicy.LIFO, TaskSchedulingPolicy.PRIORITY }) {
+            final Executor rejecting = command -> {
+                throw new RejectedExecutionException();
+            };
+            final ServiceContainerImpl container = createContainer("rejecting", rejecting, policy);
+            final AtomicReference<Thread> thread = new AtomicReference<>();
+            final Runnable task = () -> thread.set(Thread.currentThread());
+            // the rejection is passed on, as for tasks which are not queued
+            try {
+                container.getExecutor().execute(task);
+                fail("RejectedExecutionException expected");
+            } catch (RejectedExecutionException expected) {
+            }
+            assertNull(thread.get());
+            // so the whole lifecycle runs on the calling threads
+            final ServiceBuilder<?> sb = container.addService();
+            sb.provides(ServiceName.of("service"));
+            sb.setInstance(Service.NULL);
+            final ServiceController<?> controller = sb.install();
+            assertTrue(container.isStable());
+            assertSame(ServiceController.State.UP, controller.getState());
+            container.shutdown();
+            container.awaitTermination(10L, TimeUnit.SECONDS);
+            assertTrue(container.isShutdownComplete());
+            assertSame(ServiceController.State.REMOVED, controller.getState());
+        }
+    }
+
+    @Test
+    public void rejectionDoesNotRunQueuedTasks() throws Exception {
+        for (TaskSchedulingPolicy policy : new TaskSchedulingPolicy[] { TaskSchedulingPolicy.LIFO, TaskSchedulingPolicy.PRIORITY }) {
+            final ExecutorService worker = Executors.newSingleThreadExecutor();
+            final AtomicBoolean reject = new AtomicBoolean();
+            final Executor executor = command -> {
+                if (reject.get()) throw new RejectedExecutionException();
+                worker.execute(command);
+            };
+            final ServiceContainerImpl container = createContainer("rejection", executor, policy);
+            try {
+                final CountDownLatch blocked = new CountDownLatch(1);
+                final CountDownLatch release = new CountDownLatch(1);
+                container.getExecutor().execute(() -> {
+                    blocked.countDown();
+                    await(release);
+                });
+                assertTrue(blocked.await(10L, TimeUnit.SECONDS));
+                final List<String> order = Collections.synchronizedList(new ArrayList<>());
+                final CountDownLatch done = new CountDownLatch(1);
+                container.getExecutor().execute(record(order, "queued", done));
+                reject.set(true);
+                try {
+                    container.getExecutor().execute(record(order, "rejected", done));
+                    fail("RejectedExecutionException expected");
+                } catch (RejectedExecutionException expected) {
+                }
+                // neither the rejected task nor the one queued before it ran on this thread
+                assertTrue(order.isEmpty());
+                release.countDown();
+                assertTrue(done.await(10L, TimeUnit.SECONDS));
+                assertEquals(Collections.singletonList("queued"), order);
+            } finally {
+                container.shutdown();
+                container.awaitTermination(10L, TimeUnit.SECONDS);
+                worker.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Queue two tasks of each kind on the container executor while its single worker is blocked.
+     *
+     * @param policy the scheduling policy of the container
+     * @return the order the tasks ran in
+     */
+    private static List<String> runOrder(final TaskSchedulingPolicy policy) throws Exception {
+        final ExecutorService worker = Executors.newSingleThreadExecutor();
+        final ServiceContainerImpl container = createContainer("queue", worker, policy);
+        final CompletableFuture<StartContext> started = new CompletableFuture<>();
+        // lifecycle tasks are commands submitted by a starting service
+        final ServiceBuilder<?> sb = container.addService();
+        sb.provides(ServiceName.of("starting"));
+        sb.setInstance(new Service() {
+            public void start(final StartContext context) {
+                context.asynchronous();
+                started.complete(context);
+            }
+
+            public void stop(final StopContext context) {
+            }
+        });
+        sb.install();
+        final StartContext context = started.get(10L, TimeUnit.SECONDS);
+        try {
+            final Executor executor = container.getExecutor();
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                blocked.countDown();
+                await(release);
+            });
+            assertTrue(blocked.await(10L, TimeUnit.SECONDS));
+            final List<String> order = Collections.synchronizedList(new ArrayList<>());
+            final CountDownLatch done = new CountDownLatch(6);
+            for (int i = 1; i <= 2; i++) {
+                context.execute(record(order, "lifecycle" + i, done));
+                executor.execute(record(order, "bookkeeping" + i, done));
+                final CompletableFuture<Void> stability = new CompletableFuture<>();
+                stability.thenRun(record(order, "notification" + i, done));
+                executor.execute(new StabilityNotification<>(Collections.singletonMap(stability, null)));
+            }
+            release.countDown();
+            assertTrue(done.await(10L, TimeUnit.SECONDS));
+            return new ArrayList<>(order);
+        } finally {
+            context.complete();
+            container.shutdown();
+            container.awaitTermination(10L, TimeUnit.SECONDS);
+            worker.shutdown();
+        }
+    }
+
+    private static ServiceContainerImpl createContainer(final String name, final Executor executor, final TaskSchedulingPolicy policy) {
+        final ServiceContainerImpl container = new ServiceContainerImpl(name, executor, false, policy);
+        container.registerMBeanCleaner();
+        return container;
+    }
+
+    private static Runnable record(final List<String> order, final String name, final CountDownLatch done) {
+        return () -> {
+            order.add(name);
+            done.countDown();
+        };
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}